@@ -0,0 +1,86 @@
+package jpabook.springboot_jpa.api;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Address;
+import jpabook.springboot_jpa.domain.Delivery;
+import jpabook.springboot_jpa.domain.Member;
+import jpabook.springboot_jpa.domain.Order;
+import jpabook.springboot_jpa.domain.OrderItem;
+import jpabook.springboot_jpa.domain.item.Book;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 벤치마크용 데이터 적재
+ * - 도메인 생성 메서드(Order.createOrder 등)를 그대로 사용해서 실제 주문과 같은 모양으로 만든다
+ * - 1000건 단위로 커밋하고 flush/clear 해서 영속성 컨텍스트가 커지지 않게 한다
+ */
+class OrderDataSeeder {
+
+    private static final int CHUNK = 1000;
+    private static final int MEMBERS = 1000;
+    private static final int ITEMS = 1000;
+
+    private final EntityManager em;
+    private final TransactionTemplate tx;
+    private final Random random = new Random(42); // 실행마다 같은 데이터
+
+    OrderDataSeeder(EntityManager em, TransactionTemplate tx) {
+        this.em = em;
+        this.tx = tx;
+    }
+
+    /**
+     * @param maxItemsPerOrder 주문당 주문상품 수는 1 ~ maxItemsPerOrder 사이에서 무작위
+     */
+    void seed(int orders, int maxItemsPerOrder) {
+        List<Long> memberIds = tx.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < MEMBERS; i++) {
+                Member member = new Member();
+                member.setName("member" + i);
+                member.setAddress(new Address("city" + i % 10, "street" + i, "zip" + i));
+                em.persist(member);
+                ids.add(member.getId());
+            }
+            return ids;
+        });
+
+        List<Long> itemIds = tx.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < ITEMS; i++) {
+                Book book = new Book();
+                book.setName("book" + i);
+                book.setPrice(1000 + i);
+                book.setStockQuantity(Integer.MAX_VALUE);
+                em.persist(book);
+                ids.add(book.getId());
+            }
+            return ids;
+        });
+
+        for (int from = 0; from < orders; from += CHUNK) {
+            int size = Math.min(CHUNK, orders - from);
+            tx.executeWithoutResult(status -> {
+                for (int i = 0; i < size; i++) {
+                    Member member = em.getReference(Member.class, memberIds.get(random.nextInt(memberIds.size())));
+                    int lines = 1 + random.nextInt(maxItemsPerOrder);
+                    OrderItem[] orderItems = new OrderItem[lines];
+                    for (int l = 0; l < lines; l++) {
+                        Book book = em.find(Book.class, itemIds.get(random.nextInt(itemIds.size())));
+                        orderItems[l] = OrderItem.createOrderItem(book, book.getPrice(), 1 + random.nextInt(3));
+                    }
+                    Delivery delivery = new Delivery();
+                    delivery.setAddress(new Address("city", "street", "zip"));
+                    em.persist(Order.createOrder(member, delivery, orderItems));
+                }
+                em.flush();
+                em.clear();
+            });
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package jpabook.springboot_jpa.api;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.springboot_jpa.SpringbootJpaApplication;
+import jpabook.springboot_jpa.api.OrderApiController.OrderDto;
+import jpabook.springboot_jpa.repository.OrderRepository;
+import jpabook.springboot_jpa.repository.order.query.OrderFlatDto;
+import jpabook.springboot_jpa.repository.order.query.OrderItemQueryDto;
+import jpabook.springboot_jpa.repository.order.query.OrderQueryDto;
+import jpabook.springboot_jpa.repository.order.query.OrderQueryRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static java.util.stream.Collectors.*;
+
+/**
+ * 주문 조회 전략(V3 ~ V6) 벤치마크
+ * - 임베디드 H2 에 주문 수(orders), 주문당 최대 주문상품 수(maxItemsPerOrder)를 바꿔가며 적재하고 측정한다
+ * - 처리량 + gc 프로파일러(할당률) + 실행한 SQL 수(statements / invocations)를 함께 본다
+ * - 각 호출은 컨트롤러처럼 DTO 변환까지 포함하고, 호출마다 새 영속성 컨텍스트(읽기 전용 트랜잭션)에서 실행한다
+ *
+ * 실행 예) ./gradlew jmh
+ *        특정 규모만: build/libs 의 jmh jar 로 "OrderReadBenchmark -p orders=100000 -p maxItemsPerOrder=5"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderReadBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int orders;
+
+    @Param({"2", "10"})
+    public int maxItemsPerOrder;
+
+    @Param({"100"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private OrderQueryRepository orderQueryRepository;
+    private TransactionTemplate readOnlyTx;
+    private Statistics statistics;
+
+    /**
+     * 실행한 SQL 수 (statements / invocations = 호출 1번당 SQL 수)
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SqlCounter {
+        public long statements;
+        public long invocations;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 커맨드라인 인자로 넘겨야 application.yml 보다 우선 적용된다
+        context = new SpringApplicationBuilder(SpringbootJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:bench_" + orders + "_" + maxItemsPerOrder,
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.generate_statistics=true",
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                        "--logging.level.root=warn",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.orm.jdbc.bind=warn");
+
+        orderRepository = context.getBean(OrderRepository.class);
+        orderQueryRepository = context.getBean(OrderQueryRepository.class);
+        readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        new OrderDataSeeder(context.getBean(EntityManager.class), new TransactionTemplate(context.getBean(PlatformTransactionManager.class)))
+                .seed(orders, maxItemsPerOrder);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * V3 엔티티 + 컬렉션 페치 조인 (페이징 불가)
+     */
+    @Benchmark
+    public List<OrderDto> v3_findAllWithItem(SqlCounter counter) {
+        return measure(counter, () -> orderRepository.findAllWithItem().stream()
+                .map(OrderDto::new)
+                .collect(toList()));
+    }
+
+    /**
+     * V3.1 ToOne 페치 조인 + 컬렉션 batch fetch, 중간 페이지 (offset 비용 포함)
+     */
+    @Benchmark
+    public List<OrderDto> v3_1_findAllWithMemberDelivery_page(SqlCounter counter) {
+        int offset = Math.max(0, orders / 2 - pageSize);
+        return measure(counter, () -> orderRepository.findAllWithMemberDelivery(offset, pageSize).stream()
+                .map(OrderDto::new)
+                .collect(toList()));
+    }
+
+    /**
+     * V4 DTO 직접 조회, 컬렉션 N번 (1 + N)
+     */
+    @Benchmark
+    public List<OrderQueryDto> v4_findOrderQueryDtos(SqlCounter counter) {
+        return measure(counter, () -> orderQueryRepository.findOrderQueryDtos());
+    }
+
+    /**
+     * V5 DTO 직접 조회, 컬렉션 IN 쿼리 (1 + 1)
+     */
+    @Benchmark
+    public List<OrderQueryDto> v5_findAllByDto_optimization(SqlCounter counter) {
+        return measure(counter, () -> orderQueryRepository.findAllByDto_optimization());
+    }
+
+    /**
+     * V6 플랫 조인 + 애플리케이션에서 groupingBy (컨트롤러와 같은 변환)
+     */
+    @Benchmark
+    public List<OrderQueryDto> v6_findAllByDto_flat(SqlCounter counter) {
+        return measure(counter, () -> {
+            List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat();
+            return flats.stream()
+                    .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(), o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
+                            mapping(o -> new OrderItemQueryDto(o.getOrderId(), o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
+                    ))
+                    .entrySet().stream()
+                    .map(e -> new OrderQueryDto(e.getKey().getOrderId(), e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(), e.getKey().getAddress(), e.getValue()))
+                    .collect(toList());
+        });
+    }
+
+    private <T> T measure(SqlCounter counter, Supplier<T> action) {
+        long before = statistics.getPrepareStatementCount();
+        T result = readOnlyTx.execute(status -> action.get());
+        counter.statements += statistics.getPrepareStatementCount() - before;
+        counter.invocations++;
+        return result;
+    }
+
+}
@@ -0,0 +1,95 @@
+package jpabook.springboot_jpa.api;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.SpringbootJpaApplication;
+import jpabook.springboot_jpa.domain.Order;
+import jpabook.springboot_jpa.domain.OrderStatus;
+import jpabook.springboot_jpa.repository.OrderRepository;
+import jpabook.springboot_jpa.repository.OrderSearch;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * OrderSearch 검색 구현별 호출 비용 벤치마크
+ * - JPQL 문자열 조립 / Criteria / Querydsl / 조합별 named query 를 같은 조건으로 비교한다
+ * - 결과가 몇 건 안 되는 선택적인 조건을 써서 쿼리 생성 비용(CPU, gc 프로파일러의 할당량)이 드러나게 한다
+ * - 세 가지 기존 구현은 주문일 범위 조건을 지원하지 않으므로 상태 + 회원 이름 조건으로 맞춘다
+ *
+ * 실행 예) ./gradlew jmh (build/libs 의 jmh jar 로 "OrderSearchBenchmark" 만 실행 가능)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderSearchBenchmark {
+
+    @Param({"10000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private TransactionTemplate readOnlyTx;
+    private OrderSearch orderSearch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringbootJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:search_" + orders,
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                        "--logging.level.root=warn",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.orm.jdbc.bind=warn");
+
+        orderRepository = context.getBean(OrderRepository.class);
+        readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+
+        new OrderDataSeeder(context.getBean(EntityManager.class), new TransactionTemplate(context.getBean(PlatformTransactionManager.class)))
+                .seed(orders, 2);
+
+        orderSearch = new OrderSearch();
+        orderSearch.setOrderStatus(OrderStatus.ORDER);
+        orderSearch.setMemberName("member999");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Order> jpqlString() {
+        return run(orderRepository::findAllByString);
+    }
+
+    @Benchmark
+    public List<Order> criteria() {
+        return run(orderRepository::findAllByCriteria);
+    }
+
+    @Benchmark
+    public List<Order> querydsl() {
+        return run(orderRepository::findAll);
+    }
+
+    @Benchmark
+    public List<Order> namedQuery() {
+        return run(orderRepository::search);
+    }
+
+    private List<Order> run(Function<OrderSearch, List<Order>> search) {
+        return readOnlyTx.execute(status -> search.apply(orderSearch));
+    }
+}
@@ -0,0 +1,103 @@
+package jpabook.springboot_jpa.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 동시 요청 수별 처리량, 지연시간(p50/p99) 측정
+ * - 닫힌 루프(closed loop) : 동시에 concurrency 개의 요청만 보내고, 하나가 끝나야 다음을 보낸다
+ * - 단계마다 워밍업 5초 후 durationSeconds 동안 측정한다
+ * - 플랫폼 스레드 모드와 가상 스레드 모드를 같은 조건으로 띄워서 각각 실행하고 표를 비교한다
+ *
+ * 실행 순서)
+ * 1. 플랫폼 스레드 : ./gradlew bootRun
+ *    가상 스레드   : ./gradlew bootRun -PjavaVersion=21 --args='--spring.profiles.active=virtual'
+ * 2. ./gradlew loadTest -Pconcurrency=16,64,256,1024 -PdurationSeconds=20 -Ppaths=/api/v5/orders,/order
+ */
+public class LatencyLoadTest {
+
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int[] levels = Arrays.stream((args.length > 1 ? args[1] : "16,64,256,1024").split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim()))
+                .toArray();
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 20);
+        String[] paths = (args.length > 3 ? args[3] : "/api/v5/orders,/order").split(",");
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        System.out.printf("%-20s %12s %10s %10s %10s %10s %8s%n",
+                "path", "concurrency", "requests", "req/s", "p50(ms)", "p99(ms)", "errors");
+        for (String path : paths) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path.trim()))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            for (int level : levels) {
+                run(client, request, level, WARMUP); // 워밍업 결과는 버린다
+                Result result = run(client, request, level, duration);
+                System.out.printf("%-20s %12d %10d %10.1f %10.1f %10.1f %8d%n",
+                        path.trim(), level, result.count, result.count / (double) duration.toSeconds(),
+                        result.percentileMillis(0.50), result.percentileMillis(0.99), result.errors.get());
+            }
+        }
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, Duration duration) throws InterruptedException {
+        Result result = new Result();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long end = System.nanoTime() + duration.toNanos();
+
+        while (System.nanoTime() < end) {
+            if (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                continue;
+            }
+            long start = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        result.record(System.nanoTime() - start, e != null || response.statusCode() >= 400);
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(concurrency); // 남은 요청이 끝날 때까지 기다린다
+        return result;
+    }
+
+    private static class Result {
+        private long[] latencies = new long[1 << 16];
+        private int count;
+        private final AtomicLong errors = new AtomicLong();
+
+        synchronized void record(long nanos, boolean error) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (error) {
+                errors.incrementAndGet();
+            }
+        }
+
+        synchronized double percentileMillis(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            int idx = (int) Math.ceil(p * count) - 1;
+            return sorted[Math.max(0, idx)] / 1_000_000.0;
+        }
+    }
+}
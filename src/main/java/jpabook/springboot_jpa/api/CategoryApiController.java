@@ -0,0 +1,74 @@
+package jpabook.springboot_jpa.api;
+
+import jpabook.springboot_jpa.domain.Category;
+import jpabook.springboot_jpa.domain.item.Item;
+import jpabook.springboot_jpa.monitoring.QueryBudget;
+import jpabook.springboot_jpa.service.CategoryService;
+import jpabook.springboot_jpa.service.CategoryTree;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 카테고리 API
+ * - 트리는 메모리 스냅샷, 하위 조회는 클로저 테이블 쿼리 한번으로 처리한다 (단계/노드마다 쿼리하지 않음)
+ */
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+
+    private final CategoryService categoryService;
+
+    @QueryBudget(0)
+    @GetMapping("/api/categories")
+    public List<CategoryTree.Node> tree() {
+        return categoryService.findTree().getRoots();
+    }
+
+    @QueryBudget(1)
+    @GetMapping("/api/categories/{id}/descendants")
+    public List<CategoryDto> descendants(@PathVariable("id") Long id) {
+        return categoryService.findDescendants(id).stream()
+                .map(CategoryDto::new)
+                .collect(Collectors.toList());
+    }
+
+    @QueryBudget(1)
+    @GetMapping("/api/categories/{id}/items")
+    public List<CategoryItemDto> items(@PathVariable("id") Long id) {
+        return categoryService.findItemsInSubtree(id).stream()
+                .map(CategoryItemDto::new)
+                .collect(Collectors.toList());
+    }
+
+    @Data
+    static class CategoryDto {
+        private Long id;
+        private String name;
+
+        public CategoryDto(Category category) {
+            this.id = category.getId();
+            this.name = category.getName();
+        }
+    }
+
+    @Data
+    static class CategoryItemDto {
+        private Long itemId;
+        private String name;
+        private int price;
+        private String dtype;
+
+        public CategoryItemDto(Item item) {
+            this.itemId = item.getId();
+            this.name = item.getName();
+            this.price = item.getPrice();
+            this.dtype = item.getDtype();
+        }
+    }
+}
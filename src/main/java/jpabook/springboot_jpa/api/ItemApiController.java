@@ -0,0 +1,125 @@
+package jpabook.springboot_jpa.api;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jpabook.springboot_jpa.domain.item.Item;
+import jpabook.springboot_jpa.domain.item.ItemType;
+import jpabook.springboot_jpa.monitoring.QueryBudget;
+import jpabook.springboot_jpa.repository.FacetCount;
+import jpabook.springboot_jpa.repository.ItemSearch;
+import jpabook.springboot_jpa.service.StockService;
+import jpabook.springboot_jpa.service.ItemFilter;
+import jpabook.springboot_jpa.service.ItemFilterPage;
+import jpabook.springboot_jpa.service.ItemService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 상품 목록 API
+ * - 필터 : 종류(type), 가격 범위(minPrice, maxPrice), 카테고리 하위 트리(categoryId)
+ * - item_id 키셋 페이징 : 응답의 nextCursor 를 다음 요청의 after 로 넘긴다 (limit 은 1 ~ 1000, 벗어나면 400)
+ * - facets=true 면 종류별, 카테고리별 개수를 함께 준다 (각각 GROUP BY 한번, 자기 조건은 빼고 센다)
+ * ex) /api/items?type=BOOK&minPrice=10000&categoryId=1&limit=20
+ */
+@RestController
+@RequiredArgsConstructor
+public class ItemApiController {
+
+    private final ItemService itemService;
+    private final StockService stockService;
+
+    @QueryBudget(3)
+    @GetMapping("/api/items")
+    public ItemPage items(
+            @ModelAttribute ItemSearch itemSearch,
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", defaultValue = "20") @Min(1) @Max(KeysetSlice.MAX_LIMIT) int limit,
+            @RequestParam(value = "facets", defaultValue = "true") boolean facets) {
+        KeysetSlice<Item> page = KeysetSlice.of(itemService.search(itemSearch, after, limit + 1), limit,
+                i -> String.valueOf(i.getId()));
+
+        List<ItemDto> result = page.getRows().stream()
+                .map(i -> new ItemDto(i))
+                .collect(Collectors.toList());
+        return new ItemPage(result, page.getNextCursor(), null,
+                facets ? itemService.countByType(itemSearch) : null,
+                facets ? itemService.countByCategory(itemSearch) : null);
+    }
+
+    /**
+     * 속성 조건 검색 (메모리 비트맵 인덱스)
+     * - 카테고리 하위 트리, 종류, 재고 유무, 저자/가수/감독 조건을 비트맵 AND 로 교집합하고, DB 는 이번 페이지 id 만 IN 으로 읽는다
+     * - 개수(facets, total)도 비트맵으로 세므로 쿼리가 늘지 않는다
+     * ex) /api/items/filter?categoryId=1&type=BOOK&inStock=true&author=김영한
+     */
+    @QueryBudget(1)
+    @GetMapping("/api/items/filter")
+    public ItemPage filter(
+            @ModelAttribute ItemFilter filter,
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", defaultValue = "20") @Min(1) @Max(KeysetSlice.MAX_LIMIT) int limit,
+            @RequestParam(value = "facets", defaultValue = "true") boolean facets) {
+        ItemFilterPage page = itemService.filter(filter, after, limit + 1);
+        KeysetSlice<Item> slice = KeysetSlice.of(page.getItems(), limit, i -> String.valueOf(i.getId()));
+
+        List<ItemDto> result = slice.getRows().stream()
+                .map(i -> new ItemDto(i))
+                .collect(Collectors.toList());
+        return new ItemPage(result, slice.getNextCursor(), page.getTotal(),
+                facets ? itemService.countFilteredByType(filter) : null,
+                facets ? itemService.countFilteredByCategory(filter) : null);
+    }
+
+    /**
+     * 인기 상품 재고 모드 켜기 (주문 재고를 메모리 카운터로 처리하고 item 에는 주기적으로 반영)
+     */
+    @PostMapping("/api/items/{id}/hot-stock")
+    public HotStockDto enableHotStock(@PathVariable("id") Long id) {
+        stockService.enable(id);
+        return new HotStockDto(id, stockService.available(id));
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class HotStockDto {
+        private Long itemId;
+        private long available;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class ItemPage {
+        private List<ItemDto> items;
+        private String nextCursor;
+        private Long total; // 비트맵 검색에서만 (SQL 검색은 count 쿼리를 따로 하지 않는다)
+        private List<FacetCount> types;
+        private List<FacetCount> categories;
+    }
+
+    @Data
+    static class ItemDto {
+        private Long itemId;
+        private ItemType type;
+        private String name;
+        private int price;
+        private int stockQuantity;
+
+        public ItemDto(Item item) {
+            this.itemId = item.getId();
+            this.type = ItemType.of(item);
+            this.name = item.getName();
+            this.price = item.getPrice();
+            this.stockQuantity = item.getStockQuantity();
+        }
+    }
+}
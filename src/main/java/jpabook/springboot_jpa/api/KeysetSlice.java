@@ -0,0 +1,52 @@
+package jpabook.springboot_jpa.api;
+
+import jpabook.springboot_jpa.repository.OrderCursor;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 키셋 페이징 응답 자르기
+ * - limit + 1 건을 조회해서 넘기면 limit 건만 남기고, 더 있으면 마지막 행으로 다음 커서를 만든다
+ * - limit 은 컨트롤러 파라미터에서 @Min(1) @Max(MAX_LIMIT) 으로 검증한다 (범위 밖이면 400, limit + 1 도 넘치지 않는다)
+ * - 클라이언트가 넘긴 커서 토큰은 orderCursor() 로 읽는다 (깨졌거나 조작된 토큰은 400)
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+class KeysetSlice<T> {
+
+    static final int MAX_LIMIT = 1000;
+
+    private final List<T> rows;
+    private final String nextCursor;
+
+    /**
+     * after 파라미터를 주문 커서로 (없으면 null)
+     */
+    static OrderCursor orderCursor(String after) {
+        if (after == null) {
+            return null;
+        }
+        try {
+            return OrderCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    static <T> KeysetSlice<T> of(List<T> fetched, int limit, Function<T, String> cursor) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit 은 1 이상이어야 합니다. limit=" + limit);
+        }
+        if (fetched.size() <= limit) {
+            return new KeysetSlice<>(fetched, null);
+        }
+        List<T> rows = fetched.subList(0, limit);
+        return new KeysetSlice<>(rows, cursor.apply(rows.get(rows.size() - 1)));
+    }
+}
@@ -1,22 +1,44 @@
 package jpabook.springboot_jpa.api;
 
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import jpabook.springboot_jpa.domain.Address;
 import jpabook.springboot_jpa.domain.Order;
+import jpabook.springboot_jpa.domain.OrderCommandStatus;
 import jpabook.springboot_jpa.domain.OrderItem;
 import jpabook.springboot_jpa.domain.OrderStatus;
+import jpabook.springboot_jpa.monitoring.QueryBudget;
+import jpabook.springboot_jpa.repository.OrderCursor;
 import jpabook.springboot_jpa.repository.OrderRepository;
 import jpabook.springboot_jpa.repository.OrderSearch;
 import jpabook.springboot_jpa.repository.order.query.OrderFlatDto;
 import jpabook.springboot_jpa.repository.order.query.OrderItemQueryDto;
 import jpabook.springboot_jpa.repository.order.query.OrderQueryDto;
 import jpabook.springboot_jpa.repository.order.query.OrderQueryRepository;
+import jpabook.springboot_jpa.service.OptimisticLockRetryExecutor;
+import jpabook.springboot_jpa.service.OrderCancelResult;
+import jpabook.springboot_jpa.service.OrderCommandService;
+import jpabook.springboot_jpa.service.OrderExportService;
+import jpabook.springboot_jpa.service.OrderFetchPlanner;
+import jpabook.springboot_jpa.service.OrderFetchPlanner.OrderFetchResult;
+import jpabook.springboot_jpa.service.OrderLine;
+import jpabook.springboot_jpa.service.OrderService;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -35,6 +57,7 @@ import static java.util.stream.Collectors.*;
  * V3 엔티티를 조회해서 DTO로 변환 (fetch join 사용O)
  * - 페이징 시에는 N 부분을 포기해야 함
  * - 대신 batch fetch size? 옵션 주면 N -> 1 쿼리로 변경 가능
+ * - V3.2 는 offset 대신 키셋(커서) 페이징
  * <p>
  * V4 JPA 에서 DTO 로 바로 조회, 컬렉션 N 조회 (1 + N Query)
  * - 페이징 가능
@@ -44,6 +67,7 @@ import static java.util.stream.Collectors.*;
  * <p>
  * V6 JPA 에서 DTO로 바로 조회, 플랫 데이터 (1 Query) (1 Query)
  * - 페이징 불가능
+ * - V6.1 은 루트 id 를 먼저 페이징해서 페이징 가능 (2 Query)
  */
 @RestController
 @RequiredArgsConstructor
@@ -51,6 +75,11 @@ public class OrderApiController {
 
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final OrderExportService orderExportService;
+    private final OrderFetchPlanner orderFetchPlanner;
+    private final OrderService orderService;
+    private final OptimisticLockRetryExecutor optimisticLockRetryExecutor;
+    private final OrderCommandService orderCommandService;
 
     /**
      * V1 엔티티 직접 노출
@@ -83,6 +112,7 @@ public class OrderApiController {
         return result;
     }
 
+    @QueryBudget(1)
     @GetMapping("/api/v3/orders")
     public List<OrderDto> ordersV3() {
         List<Order> orders = orderRepository.findAllWithItem();
@@ -115,6 +145,26 @@ public class OrderApiController {
         return result;
     }
 
+    /**
+     * V3.2 키셋(seek) 페이징
+     * - offset 대신 마지막으로 읽은 위치를 after 커서로 받는다 (뒤 페이지로 가도 응답 시간이 일정)
+     * - ToOne 관계는 페치 조인, 컬렉션은 V3.1과 동일하게 default_batch_fetch_size 로 조회
+     * - limit + 1 건을 조회해서 다음 페이지가 있을 때만 nextCursor 를 내려준다 (limit 은 1 ~ 1000, 벗어나면 400)
+     */
+    @GetMapping("/api/v3.2/orders")
+    public CursorResult<List<OrderDto>> ordersV3_cursor(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(KeysetSlice.MAX_LIMIT) int limit) {
+        OrderCursor cursor = KeysetSlice.orderCursor(after);
+        KeysetSlice<Order> page = KeysetSlice.of(orderRepository.findAllWithMemberDelivery(cursor, limit + 1), limit,
+                o -> OrderCursor.of(o).encode());
+
+        List<OrderDto> result = page.getRows().stream()
+                .map(o -> new OrderDto(o))
+                .collect(toList());
+        return new CursorResult<>(result, page.getNextCursor());
+    }
+
     /**
      * Query : 루트 1번, 컬렉션 N번 실행
      * ToOne(N:1, 1:1) 관계들을 먼저 조회하고, ToMany(1 : N) 관계는 각각 별도로 처리한다
@@ -145,6 +195,7 @@ public class OrderApiController {
      *    - 애플리케이션에서 추가 작업이 크다
      *    - 페이징 불가능
      */
+    @QueryBudget(1)
     @GetMapping("/api/v6/orders")
     public List<OrderQueryDto> orderV6() {
         List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat();
@@ -158,6 +209,153 @@ public class OrderApiController {
                 .collect(toList());
     }
 
+    /**
+     * V6.1 플랫 데이터 + 페이징
+     * Query : 루트 id 윈도우 1번, 플랫 조인 1번
+     * - 루트(order) id 를 먼저 페이징한 뒤 해당 id 들만 플랫 조인
+     * - order_id 가 바뀌는 지점에서 끊어서 묶으므로 순서가 유지되고, 해시 기반 groupingBy 가 필요 없다
+     * - offset 은 0 이상, limit 은 1 ~ 1000 (벗어나면 400)
+     */
+    @QueryBudget(2)
+    @GetMapping("/api/v6.1/orders")
+    public List<OrderQueryDto> orderV6_page(
+            @RequestParam(value = "offset", defaultValue = "0") @Min(0) int offset,
+            @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(KeysetSlice.MAX_LIMIT) int limit) {
+        return orderQueryRepository.findAllByDto_flat(offset, limit);
+    }
+
+    /**
+     * 주문 등록 (여러 상품)
+     * - 상품을 한번에 조회하고, 모든 줄의 재고 차감과 insert 를 한 트랜잭션에서 처리 (하나라도 실패하면 전체 롤백)
+     * - 재고 버전 충돌이 나면 새 트랜잭션으로 재시도
+     */
+    @PostMapping("/api/v2/orders")
+    public CreateOrderResponse saveOrderV2(@RequestBody @Valid CreateOrderRequest request) {
+        List<OrderLine> lines = request.getLines().stream()
+                .map(l -> new OrderLine(l.getItemId(), l.getCount()))
+                .collect(toList());
+
+        Long orderId = optimisticLockRetryExecutor.execute(() -> orderService.order(request.getMemberId(), lines));
+        return new CreateOrderResponse(orderId);
+    }
+
+    /**
+     * 주문 접수 (비동기)
+     * - 검증 후 outbox 에 명령만 저장하고 202 Accepted + 추적 id 를 돌려준다
+     * - 재고 차감, 주문 생성은 워커 풀이 처리하므로 주문이 몰려도 요청 스레드와 DB 커넥션을 오래 잡지 않는다
+     * - 결과는 Location 헤더의 상태 조회 API 로 확인한다
+     */
+    @PostMapping("/api/v3/orders")
+    public ResponseEntity<OrderCommandResponse> saveOrderV3(@RequestBody @Valid CreateOrderRequest request) {
+        List<OrderLine> lines = request.getLines().stream()
+                .map(l -> new OrderLine(l.getItemId(), l.getCount()))
+                .collect(toList());
+
+        String trackingId = orderCommandService.accept(request.getMemberId(), lines);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/commands/" + trackingId))
+                .body(new OrderCommandResponse(trackingId, OrderCommandStatus.PENDING, null, null));
+    }
+
+    /**
+     * 주문 접수 상태 조회 (PENDING -> PROCESSING -> DONE / FAILED)
+     */
+    @GetMapping("/api/orders/commands/{trackingId}")
+    public ResponseEntity<OrderCommandResponse> orderCommand(@PathVariable("trackingId") String trackingId) {
+        return orderCommandService.findByTrackingId(trackingId)
+                .map(c -> ResponseEntity.ok(new OrderCommandResponse(c.getTrackingId(), c.getStatus(), c.getOrderId(), c.getFailureReason())))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 주문 일괄 취소
+     * - 재고는 상품별로 합쳐서 상품당 update 한번으로 돌려주고, 주문상품마다 RELEASE 변동을 남긴다
+     * - 취소할 수 없는 주문(없음, 이미 취소, 배송완료)은 건너뛰고 skipped 에 사유를 담는다
+     * - 재고 버전 충돌이 나면 새 트랜잭션으로 재시도
+     */
+    @PostMapping("/api/orders/cancel")
+    public OrderCancelResult cancelOrders(@RequestBody @Valid CancelOrdersRequest request) {
+        return optimisticLockRetryExecutor.execute(() -> orderService.cancelOrders(request.getOrderIds()));
+    }
+
+    /**
+     * 조회 전략 자동 선택
+     * - 데이터 분포(주문당 주문상품 수)와 페이징 여부, 실제 측정한 응답 시간을 보고 V3.1 / V5 / V6 중 하나를 고른다
+     * - 항상 페이징한다 (offset 은 0 이상, limit 은 1 ~ 1000, 벗어나면 400). 전체 조회는 /api/orders/export 를 쓴다
+     * - 어떤 전략이 선택되었는지는 X-Order-Fetch-Strategy 헤더로 내려준다
+     */
+    @GetMapping("/api/orders")
+    public ResponseEntity<List<OrderQueryDto>> orders(
+            @RequestParam(value = "offset", defaultValue = "0") @Min(0) int offset,
+            @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(KeysetSlice.MAX_LIMIT) int limit) {
+        OrderFetchResult result = orderFetchPlanner.findOrders(offset, limit);
+        return ResponseEntity.ok()
+                .header("X-Order-Fetch-Strategy", result.getStrategy().name())
+                .body(result.getOrders());
+    }
+
+    /**
+     * 전체 주문 내보내기 (NDJSON)
+     * - V6 플랫 조회를 커서로 읽으면서 주문 단위로 묶어 바로 응답에 쓴다
+     * - 결과를 List 로 모으지 않으므로 주문 수와 상관없이 메모리 사용량이 일정하다
+     */
+    @GetMapping(value = "/api/orders/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportOrders(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        orderExportService.exportNdjson(response.getOutputStream());
+    }
+
+    /**
+     * 주문 등록용 DTO
+     */
+    @Data
+    static class CreateOrderRequest {
+        @NotNull
+        private Long memberId;
+        @NotEmpty
+        @Valid
+        private List<OrderLineRequest> lines;
+    }
+
+    @Data
+    static class OrderLineRequest {
+        @NotNull
+        private Long itemId;
+        @Positive
+        private int count;
+    }
+
+    @Data
+    static class CancelOrdersRequest {
+        @NotEmpty
+        private List<Long> orderIds;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateOrderResponse {
+        private Long orderId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class OrderCommandResponse {
+        private String trackingId;
+        private OrderCommandStatus status;
+        private Long orderId;
+        private String failureReason;
+    }
+
+    /**
+     * 커서 페이징 응답
+     */
+    @Data
+    @AllArgsConstructor
+    static class CursorResult<T> {
+        private T data;
+        private String nextCursor;
+    }
 
     /**
      * V2 용 DTO
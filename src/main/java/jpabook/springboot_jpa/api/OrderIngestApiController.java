@@ -0,0 +1,35 @@
+package jpabook.springboot_jpa.api;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jpabook.springboot_jpa.service.OrderIngestService;
+import jpabook.springboot_jpa.service.OrderIngestService.Format;
+import jpabook.springboot_jpa.service.OrderIngestService.IngestResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * 파트너 주문 파일 대량 적재
+ * - 요청 본문을 스트림으로 읽기 때문에 파일 크기와 상관없이 메모리 사용량이 일정하다
+ * - Content-Type: text/csv 또는 application/x-ndjson
+ */
+@RestController
+@RequiredArgsConstructor
+public class OrderIngestApiController {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final OrderIngestService orderIngestService;
+
+    @PostMapping(value = "/api/orders/bulk", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public IngestResult bulkOrders(HttpServletRequest request) throws IOException {
+        Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+                ? Format.NDJSON
+                : Format.CSV;
+        return orderIngestService.ingest(request.getInputStream(), format);
+    }
+
+}
@@ -1,15 +1,24 @@
 package jpabook.springboot_jpa.api;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jpabook.springboot_jpa.api.OrderApiController.CursorResult;
 import jpabook.springboot_jpa.domain.Address;
 import jpabook.springboot_jpa.domain.Order;
 import jpabook.springboot_jpa.domain.OrderStatus;
+import jpabook.springboot_jpa.domain.OrderSummary;
+import jpabook.springboot_jpa.monitoring.QueryBudget;
+import jpabook.springboot_jpa.repository.OrderCursor;
 import jpabook.springboot_jpa.repository.OrderRepository;
 import jpabook.springboot_jpa.repository.OrderSearch;
+import jpabook.springboot_jpa.repository.OrderSummaryRepository;
 import jpabook.springboot_jpa.repository.order.simplequery.OrderSimpleQueryDto;
 import jpabook.springboot_jpa.repository.order.simplequery.OrderSimpleQueryRepository;
+import jpabook.springboot_jpa.service.OrderService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
@@ -28,6 +37,8 @@ public class OrderSimpleApiController {
 
     private final OrderRepository orderRepository;
     private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final OrderService orderService;
+    private final OrderSummaryRepository orderSummaryRepository;
 
     @GetMapping("/api/v1/simple-orders")
     public List<Order> orderV1() {
@@ -67,6 +78,7 @@ public class OrderSimpleApiController {
      * 엔티티를 페치 조인을 사용해 쿼리 1번에 조회
      * 페치 조인으로 order -> member, order -> delivery 는 이미 조회된 상태이므로 지연로딩 X
      */
+    @QueryBudget(1)
     @GetMapping("/api/v3/simple-orders")
     public List<SimpleOrderDto> orderV3() {
         List<Order> orders = orderRepository.findAllWithMemberDelivery();
@@ -83,12 +95,48 @@ public class OrderSimpleApiController {
      * SELECT 절에서 원하는 데이터를 직접 선택하므로 DB -> 애플리케이션 네트워크 용량 최적화(생각보다 미비)
      * 리포지토리 재사용성이 떨어짐, API 스펙에 맞춘 코드가 리포지토리에 들어가는 단점
      */
+    @QueryBudget(1)
     @GetMapping("/api/v4/simple-orders")
     public List<OrderSimpleQueryDto> orderV4() {
         return orderSimpleQueryRepository.findOrderDtos();
     }
     // v3, v4 비교 : v3는 재사용성이 좋고 v4는 재사용성이 없지만, v3보다는 v4가 성능 최적화 면에서는 조금 더 좋다.
 
+    /**
+     * 읽기 모델(order_summary) 조회
+     * - 주문/회원 변경 커밋 후에 갱신되는 요약 테이블 한 개만 조인 없이 키셋 페이징으로 읽는다
+     * - 변경 직후에는 잠깐 이전 값이 보일 수 있다 (지연은 actuator 의 order.summary.lag 로 확인)
+     * - limit 은 1 ~ 1000, 벗어나면 400
+     */
+    @QueryBudget(1)
+    @GetMapping("/api/v5/simple-orders")
+    public CursorResult<List<SimpleOrderDto>> orderV5(
+            @RequestParam(value = "status", required = false) OrderStatus status,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(KeysetSlice.MAX_LIMIT) int limit) {
+        OrderCursor cursor = KeysetSlice.orderCursor(after);
+        KeysetSlice<OrderSummary> page = KeysetSlice.of(orderSummaryRepository.findPage(status, cursor, limit + 1), limit,
+                s -> OrderCursor.of(s).encode());
+
+        List<SimpleOrderDto> result = page.getRows().stream()
+                .map(s -> new SimpleOrderDto(s))
+                .collect(Collectors.toList());
+        return new CursorResult<>(result, page.getNextCursor());
+    }
+
+    /**
+     * 회원 이름 부분 일치(%이름%) 검색
+     * - 메모리 trigram 인덱스가 후보 회원 id 를 구하고, 주문은 member_id IN 조회 + 페치 조인 1번으로 가져온다
+     */
+    @QueryBudget(1)
+    @GetMapping("/api/simple-orders/search")
+    public List<SimpleOrderDto> searchByMemberName(@RequestParam("name") String name,
+                                                   @RequestParam(value = "status", required = false) OrderStatus status) {
+        return orderService.findOrdersByMemberNameContaining(name, status).stream()
+                .map(o -> new SimpleOrderDto(o))
+                .collect(Collectors.toList());
+    }
+
     /**
      * === 쿼리 방식 선택 권장 순서 ===
      * 1. 우선 엔티티를 DTO로 변환하는 방법을 선택
@@ -116,6 +164,14 @@ public class OrderSimpleApiController {
             orderStatus = order.getStatus();
             address = order.getDelivery().getAddress(); // LAZY 초기화
         }
+
+        public SimpleOrderDto(OrderSummary summary) {
+            orderId = summary.getOrderId();
+            name = summary.getMemberName();
+            orderDate = summary.getOrderDate();
+            orderStatus = summary.getStatus();
+            address = summary.getAddress();
+        }
     }
 
 }
@@ -0,0 +1,63 @@
+package jpabook.springboot_jpa.api;
+
+import jpabook.springboot_jpa.monitoring.QueryBudget;
+import jpabook.springboot_jpa.repository.report.SalesGroupBy;
+import jpabook.springboot_jpa.repository.report.SalesRowDto;
+import jpabook.springboot_jpa.service.SalesReportService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 리포트 API
+ * - 분석용 집계는 주문 조회 API(/api/v6/orders 등)를 받아서 밖에서 계산하지 말고 여기서 DB 집계 결과만 받는다
+ */
+@RestController
+@RequiredArgsConstructor
+public class ReportApiController {
+
+    private final SalesReportService salesReportService;
+
+    /**
+     * 매출(주문가격 * 수량), 판매 수량 집계
+     * ex) /api/reports/sales?from=2024-01-01&to=2024-01-31&groupBy=TYPE
+     * - from 이 to 보다 늦으면 400
+     */
+    @QueryBudget(1)
+    @GetMapping("/api/reports/sales")
+    public SalesReport sales(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "groupBy", defaultValue = "ITEM") SalesGroupBy groupBy,
+            @RequestParam(value = "live", defaultValue = "false") boolean live) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from 이 to 보다 늦습니다. from=" + from + ", to=" + to);
+        }
+        List<SalesRowDto> rows = salesReportService.sales(groupBy, from, to, live);
+
+        long revenue = rows.stream().mapToLong(SalesRowDto::getRevenue).sum();
+        long units = rows.stream().mapToLong(SalesRowDto::getUnits).sum();
+        return new SalesReport(from, to, groupBy, live ? "order_item" : "sales_daily", revenue, units, rows);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class SalesReport {
+        private LocalDate from;
+        private LocalDate to;
+        private SalesGroupBy groupBy;
+        private String source;
+        private long totalRevenue;
+        private long totalUnits;
+        private List<SalesRowDto> rows;
+    }
+}
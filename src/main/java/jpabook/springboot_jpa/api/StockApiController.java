@@ -0,0 +1,85 @@
+package jpabook.springboot_jpa.api;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jpabook.springboot_jpa.domain.StockMovement;
+import jpabook.springboot_jpa.domain.StockMovementType;
+import jpabook.springboot_jpa.monitoring.QueryBudget;
+import jpabook.springboot_jpa.repository.StockBalance;
+import jpabook.springboot_jpa.service.StockService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 재고 변동 이력, 대사 API
+ */
+@RestController
+@RequiredArgsConstructor
+public class StockApiController {
+
+    private final StockService stockService;
+
+    /**
+     * 상품별 재고 변동 이력 (오래된 순, stock_movement_id 키셋 페이징, limit 은 1 ~ 1000)
+     * ex) /api/items/1/stock-movements?after=100&limit=100
+     */
+    @QueryBudget(1)
+    @GetMapping("/api/items/{id}/stock-movements")
+    public MovementPage movements(
+            @PathVariable("id") Long itemId,
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(KeysetSlice.MAX_LIMIT) int limit) {
+        KeysetSlice<StockMovement> page = KeysetSlice.of(stockService.findMovements(itemId, after, limit + 1), limit,
+                m -> String.valueOf(m.getId()));
+
+        List<MovementDto> result = page.getRows().stream()
+                .map(m -> new MovementDto(m))
+                .collect(Collectors.toList());
+        return new MovementPage(result, page.getNextCursor());
+    }
+
+    /**
+     * 재고 대사: item.stock_quantity 가 변동 기록 합계(인기 상품은 카운터)와 맞지 않는 상품 목록
+     * - 변동 기록 전체를 한번 집계하므로 운영 점검용으로만 호출한다
+     */
+    @QueryBudget(1)
+    @GetMapping("/api/stock/reconciliation")
+    public List<StockBalance> reconciliation() {
+        return stockService.reconcile();
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class MovementPage {
+        private List<MovementDto> movements;
+        private String nextCursor;
+    }
+
+    @Data
+    static class MovementDto {
+        private Long movementId;
+        private StockMovementType type;
+        private int quantity;
+        private Long orderId;
+        private boolean applied;
+        private LocalDateTime createdAt;
+
+        public MovementDto(StockMovement movement) {
+            this.movementId = movement.getId();
+            this.type = movement.getType();
+            this.quantity = movement.getQuantity();
+            this.orderId = movement.getOrderId();
+            this.applied = movement.isApplied();
+            this.createdAt = movement.getCreatedAt();
+        }
+    }
+}
@@ -6,8 +6,12 @@ import jpabook.springboot_jpa.domain.item.Item;
 import jpabook.springboot_jpa.repository.OrderSearch;
 import jpabook.springboot_jpa.service.ItemService;
 import jpabook.springboot_jpa.service.MemberService;
+import jpabook.springboot_jpa.service.OptimisticLockRetryExecutor;
+import jpabook.springboot_jpa.service.OrderCommandService;
+import jpabook.springboot_jpa.service.OrderLine;
 import jpabook.springboot_jpa.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +25,12 @@ public class OrderController {
     private final OrderService orderService;
     private final MemberService memberService;
     private final ItemService itemService;
+    private final OptimisticLockRetryExecutor optimisticLockRetryExecutor;
+    private final OrderCommandService orderCommandService;
+
+    // true 면 주문을 접수(outbox)만 하고 바로 목록으로 돌아간다 (주문은 잠시 뒤 목록에 나타난다)
+    @Value("${jpashop.order.async:false}")
+    private boolean asyncOrder;
 
     @GetMapping("/order")
     public String createForm(Model model) {
@@ -36,7 +46,13 @@ public class OrderController {
 
     @PostMapping("/order")
     public String order(@RequestParam("memberId") Long memberId, @RequestParam("itemId") Long itemId, @RequestParam("count") int count) {
-        orderService.order(memberId, itemId, count);
+        if (asyncOrder) {
+            orderCommandService.accept(memberId, List.of(new OrderLine(itemId, count)));
+            return "redirect:/orders";
+        }
+
+        // 같은 상품을 동시에 주문해서 재고 버전 충돌이 나면 새 트랜잭션으로 재시도
+        optimisticLockRetryExecutor.execute(() -> orderService.order(memberId, itemId, count));
         return "redirect:/orders";
     }
 
@@ -53,7 +69,7 @@ public class OrderController {
 
     @PostMapping("/orders/{orderId}/cancel")
     public String cancelOrder(@PathVariable("orderId") Long orderId) {
-        orderService.cancelOrder(orderId);
+        optimisticLockRetryExecutor.execute(() -> orderService.cancelOrder(orderId));
         return "redirect:/orders";
     }
 
@@ -0,0 +1,173 @@
+package jpabook.springboot_jpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션은 레플리카, 나머지는 프라이머리로 보내는 DataSource
+ * - @Transactional(readOnly = true) 인 서비스 메서드는 사용 가능한 레플리카를 돌아가며(round robin) 쓴다
+ * - checkReplicas() 가 주기적으로 레플리카 상태와 복제 지연(lagQuery)을 확인하고, 허용치를 넘은 레플리카는 뺀다
+ * - 쓸 수 있는 레플리카가 없으면 읽기도 프라이머리로 보낸다 (fallback)
+ * <p>
+ * 주의
+ * - 트랜잭션 시작 시점에는 아직 readOnly 여부가 동기화되지 않으므로 반드시 LazyConnectionDataSourceProxy 로 감싸서 쓴다
+ * - 레플리카는 복제 지연만큼 과거 데이터를 읽는다. 쓰기 직후 같은 데이터를 다시 읽어야 하면 쓰기 트랜잭션 안에서 읽는다
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    static final String PRIMARY = "primary";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+    private final Counter fallbackRoutes;
+
+    private volatile List<Replica> available = List.of();
+
+    /**
+     * @param lagQuery 레플리카에서 실행할 복제 지연(초) 조회 쿼리, 비어 있으면 연결 확인만 한다
+     *                 ex) PostgreSQL : select extract(epoch from now() - pg_last_xact_replay_timestamp())
+     */
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+                                    Duration maxLag, String lagQuery, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (HikariDataSource dataSource : replicas) {
+            Replica replica = new Replica(dataSource);
+            this.replicas.add(replica);
+            targets.put(replica.name, dataSource);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("pool", replica.name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.available", replica, r -> r.available ? 1 : 0)
+                    .tag("pool", replica.name)
+                    .register(meterRegistry);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+
+        this.primaryRoutes = route(meterRegistry, "primary");
+        this.replicaRoutes = route(meterRegistry, "replica");
+        this.fallbackRoutes = route(meterRegistry, "fallback");
+    }
+
+    private static Counter route(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("datasource.route").tag("route", route).register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+
+        List<Replica> candidates = available;
+        if (candidates.isEmpty()) {
+            fallbackRoutes.increment();
+            return PRIMARY;
+        }
+        replicaRoutes.increment();
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size())).name;
+    }
+
+    /**
+     * 레플리카마다 연결과 복제 지연을 확인하고 라우팅 대상 목록을 갱신한다
+     */
+    public void checkReplicas() {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.check(lagQuery, maxLag)) {
+                healthy.add(replica);
+            }
+        }
+        available = List.copyOf(healthy);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+        primary.close();
+    }
+
+    private static class Replica {
+
+        private final String name;
+        private final HikariDataSource dataSource;
+        private volatile double lagSeconds = Double.NaN;
+        private volatile boolean available;
+
+        Replica(HikariDataSource dataSource) {
+            this.name = dataSource.getPoolName();
+            this.dataSource = dataSource;
+        }
+
+        boolean check(String lagQuery, Duration maxLag) {
+            double lag;
+            try (Connection con = dataSource.getConnection()) {
+                lag = StringUtils.hasText(lagQuery) ? queryLag(con, lagQuery, queryTimeoutSeconds()) : 0;
+            } catch (SQLException e) {
+                log.debug("레플리카 상태 확인 실패 pool={}", name, e);
+                lag = Double.NaN;
+            }
+
+            boolean ok = !Double.isNaN(lag) && lag * 1000 <= maxLag.toMillis();
+            if (ok != available) {
+                log.warn("레플리카 {} pool={} lag={}s", ok ? "복구" : "제외", name, lag);
+            }
+            lagSeconds = lag;
+            available = ok;
+            return ok;
+        }
+
+        /**
+         * 지연 조회가 걸려도 확인 스레드를 오래 잡지 않도록 커넥션 획득 제한 시간만큼만 기다린다 (JDBC 는 초 단위, 최소 1초)
+         */
+        private int queryTimeoutSeconds() {
+            return (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(dataSource.getConnectionTimeout()));
+        }
+
+        private static double queryLag(Connection con, String lagQuery, int timeoutSeconds) throws SQLException {
+            try (Statement statement = con.createStatement()) {
+                statement.setQueryTimeout(timeoutSeconds);
+                try (ResultSet rs = statement.executeQuery(lagQuery)) {
+                    if (!rs.next()) {
+                        return Double.NaN;
+                    }
+                    double lag = rs.getDouble(1);
+                    return rs.wasNull() ? Double.NaN : lag; // 복제가 아직 시작되지 않으면 null
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package jpabook.springboot_jpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 읽기/쓰기 분리 DataSource (jpashop.datasource.routing.enabled=true 일 때만)
+ * - 프라이머리, 레플리카마다 별도 Hikari 풀을 만들고 hikaricp.connections.*{pool=primary|replica-N} 메트릭을 남긴다
+ * - 풀들은 빈으로 등록하지 않는다 (p6spy 가 감싼 DataSource 빈이 여러 개면 SQL 이 중복 기록된다)
+ *   그래서 @ConfigurationProperties 대신 Binder 로 spring.datasource.hikari.* 를 프라이머리 풀에 직접 바인딩한다
+ * - 라우팅은 트랜잭션마다 커넥션을 새로 가져와야 동작하므로 OSIV 를 끈다 (application-replica.yml)
+ *   OSIV 가 켜져 있으면 요청 동안 EntityManager 가 첫 커넥션을 계속 잡고 있어서, 읽기 전용 트랜잭션 뒤의 쓰기가 레플리카로 간다
+ * - 레플리카 상태 확인은 @Scheduled 공용 스레드(1개)가 아니라 전용 스레드에서 돌린다
+ *   응답 없는 레플리카를 확인하는 동안 주문 명령 폴링, 인기 상품 재고 반영 같은 다른 주기 작업이 멈추지 않게 하고,
+ *   확인 한번은 레플리카 connection-timeout(기본 1초) 안에 끝난다
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+@ConditionalOnProperty(name = "jpashop.datasource.routing.enabled", havingValue = "true")
+public class RoutingDataSourceConfig {
+
+    private ReplicaRoutingDataSource routingDataSource;
+    private ScheduledExecutorService replicaChecker;
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties,
+                                 RoutingDataSourceProperties routingProperties,
+                                 MeterRegistry meterRegistry,
+                                 Environment environment) {
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        primary.setMetricsTrackerFactory(metrics);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (RoutingDataSourceProperties.Replica properties : routingProperties.getReplicas()) {
+            HikariDataSource replica = new HikariDataSource(); // 레플리카가 내려가 있어도 기동은 되도록 풀은 처음 쓸 때 만든다
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setJdbcUrl(properties.getUrl());
+            replica.setUsername(properties.getUsername());
+            replica.setPassword(properties.getPassword());
+            replica.setMaximumPoolSize(properties.getMaximumPoolSize());
+            replica.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+            replica.setValidationTimeout(Math.max(250, properties.getConnectionTimeout().toMillis() / 2)); // connectionTimeout 보다 짧아야 한다
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(metrics);
+            replicas.add(replica);
+        }
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas,
+                routingProperties.getMaxLag(), routingProperties.getLagQuery(), meterRegistry);
+        routingDataSource.checkReplicas();
+
+        long interval = routingProperties.getCheckIntervalMs();
+        replicaChecker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-check-"));
+        replicaChecker.scheduleWithFixedDelay(this::checkReplicas, interval, interval, TimeUnit.MILLISECONDS);
+
+        // 트랜잭션 시작 시점이 아니라 첫 SQL 실행 시점에 커넥션을 가져와야 readOnly 여부로 라우팅할 수 있다
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    private void checkReplicas() {
+        try {
+            routingDataSource.checkReplicas();
+        } catch (RuntimeException e) {
+            log.warn("레플리카 상태 확인 실패", e); // 예외가 밖으로 나가면 이후 주기 실행이 취소된다
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (replicaChecker != null) {
+            replicaChecker.shutdownNow();
+        }
+        if (routingDataSource != null) {
+            routingDataSource.close();
+        }
+    }
+}
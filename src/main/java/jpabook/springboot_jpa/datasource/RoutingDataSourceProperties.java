@@ -0,0 +1,53 @@
+package jpabook.springboot_jpa.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * jpashop.datasource.routing.* 설정
+ * - 프라이머리는 spring.datasource.* 를 그대로 쓰고, 레플리카만 여기에 나열한다
+ */
+@Getter
+@Setter
+@ConfigurationProperties("jpashop.datasource.routing")
+public class RoutingDataSourceProperties {
+
+    private boolean enabled;
+
+    /**
+     * 이보다 복제가 늦은 레플리카는 읽기 대상에서 뺀다
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /**
+     * 레플리카에서 실행할 복제 지연(초) 조회 쿼리 (비어 있으면 연결 확인만 한다)
+     */
+    private String lagQuery;
+
+    /**
+     * 레플리카 상태 확인 주기 (확인은 전용 스레드에서 돈다)
+     */
+    private long checkIntervalMs = 1000;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        /**
+         * 커넥션 획득 제한 시간 (Hikari 기본 30초는 레플리카가 응답하지 않을 때 상태 확인과 읽기 요청을 너무 오래 붙잡는다)
+         * - 복제 지연 조회 쿼리의 제한 시간으로도 쓴다
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+    }
+}
@@ -2,6 +2,7 @@ package jpabook.springboot_jpa.domain;
 
 import jakarta.persistence.*;
 import jpabook.springboot_jpa.domain.item.Item;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -24,7 +25,8 @@ public class Category {
     @JoinTable(
             name = "category_item",
             joinColumns = @JoinColumn(name = "category_id"),
-            inverseJoinColumns = @JoinColumn(name = "item_id")
+            inverseJoinColumns = @JoinColumn(name = "item_id"),
+            indexes = @Index(name = "idx_category_item_category", columnList = "category_id, item_id") // 하위 트리 상품 조회용
     )
     private List<Item> items = new ArrayList<>();
 
@@ -35,10 +37,41 @@ public class Category {
     @OneToMany(mappedBy = "parent")
     private List<Category> child = new ArrayList<>();
 
+    /**
+     * 자신을 포함한 모든 상위 카테고리 경로 (클로저 테이블에서 descendant = 자신인 행)
+     * - addChildCategory 가 관리하므로 직접 수정하지 않는다
+     */
+    @Setter(AccessLevel.NONE)
+    @OneToMany(mappedBy = "descendant", cascade = CascadeType.ALL)
+    private List<CategoryClosure> ancestors = new ArrayList<>();
+
+    public Category() {
+        ancestors.add(new CategoryClosure(this, this, 0));
+    }
+
     // --- 연관관계 편의 메서드 ---
+
+    /**
+     * 하위 카테고리 추가
+     * - 상위의 경로 전체를 하위(와 하위가 이미 가진 자식들)에 이어 붙여 클로저 행을 만든다
+     * - 다른 카테고리 밑에 있는 카테고리를 옮기는 것은 지원하지 않는다 (기존 경로 삭제가 필요)
+     */
     public void addChildCategory(Category child) {
+        if (child.getParent() != null) {
+            throw new IllegalStateException("이미 상위 카테고리가 있는 카테고리입니다.");
+        }
         this.child.add(child);
         child.setParent(this);
+        child.linkAncestors(this.ancestors, 1);
+    }
+
+    private void linkAncestors(List<CategoryClosure> parentPaths, int distance) {
+        for (CategoryClosure path : parentPaths) {
+            ancestors.add(new CategoryClosure(path.getAncestor(), this, path.getDepth() + distance));
+        }
+        for (Category c : child) {
+            c.linkAncestors(parentPaths, distance + 1);
+        }
     }
 
 }
@@ -0,0 +1,53 @@
+package jpabook.springboot_jpa.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 카테고리 클로저 테이블
+ * - (상위, 하위) 모든 쌍을 한 행씩 저장한다. 자기 자신도 depth 0 으로 포함한다
+ * - 하위 전체 조회는 PK(ancestor_id, descendant_id) 범위 스캔 한번, 상위 경로 조회는 idx_category_closure_descendant 한번으로 끝난다
+ * - 직접 만들지 않고 Category.addChildCategory 가 함께 만든다
+ */
+@Entity
+@Getter
+@Table(name = "category_closure", indexes = {
+        @Index(name = "idx_category_closure_descendant", columnList = "descendant_id, depth")
+})
+@IdClass(CategoryClosure.Key.class)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class CategoryClosure {
+
+    @Id
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ancestor_id")
+    private Category ancestor;
+
+    @Id
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "descendant_id")
+    private Category descendant;
+
+    private int depth; // ancestor 에서 descendant 까지 단계 수
+
+    CategoryClosure(Category ancestor, Category descendant, int depth) {
+        this.ancestor = ancestor;
+        this.descendant = descendant;
+        this.depth = depth;
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long ancestor;
+        private Long descendant;
+    }
+}
@@ -3,17 +3,30 @@ package jpabook.springboot_jpa.domain;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
 @Getter
 @Setter
+@Table(name = "member", indexes = {
+        @Index(name = "idx_member_name_search", columnList = "name_search") // 회원 이름 전방 일치 검색용
+})
 public class Member {
 
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
     @Id
     @GeneratedValue
     @Column(name = "member_id")
@@ -21,6 +34,15 @@ public class Member {
 
     private String name;
 
+    /**
+     * 검색용 정규화 이름 (소문자 + 악센트 제거)
+     * - name 을 바꿀 때 함께 갱신되므로 직접 설정하지 않는다
+     */
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column(name = "name_search")
+    private String nameSearch;
+
     @Embedded
     private Address address;
 
@@ -28,4 +50,22 @@ public class Member {
     @OneToMany(mappedBy = "member")
     private List<Order> orders = new ArrayList<>();
 
+    public void setName(String name) {
+        this.name = name;
+        this.nameSearch = toSearchName(name);
+    }
+
+    /**
+     * 검색어와 name_search 컬럼을 같은 규칙으로 맞춘다
+     * - NFD 로 분해한 뒤 결합 문자(악센트)를 제거하고 다시 NFC 로 합친다 (한글은 그대로 유지)
+     * - 대소문자 구분 없이 찾을 수 있도록 소문자로 바꾼다
+     */
+    public static String toSearchName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(name.trim(), Normalizer.Form.NFD);
+        String folded = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return Normalizer.normalize(folded, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    }
 }
@@ -10,11 +10,17 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Entity
 @Getter
 @Setter
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_order_date_id", columnList = "order_date, order_id"), // 키셋 페이징용
+        @Index(name = "idx_orders_status_order_date", columnList = "status, order_date"), // 상태 검색용
+        @Index(name = "idx_orders_member_id", columnList = "member_id"), // 회원 조인용
+        @Index(name = "idx_orders_total_price", columnList = "total_price") // 금액 정렬, 범위 검색용
+})
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
 
@@ -40,6 +46,19 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus status; // 주문 상태 [ORDER, CANCEL]
 
+    /**
+     * 주문 총액, 주문상품 줄 수 (addOrderItem 에서 함께 갱신)
+     * - 목록/리포트가 order_item 을 읽지 않고 SQL 로 정렬, 필터, 집계할 수 있도록 저장해 둔다
+     * - 컬럼 추가 전에 만들어진 주문은 null 이고 OrderTotalsBackfill 이 채운다
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "total_price")
+    private Integer totalPrice = 0;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "item_count")
+    private Integer itemCount = 0;
+
     // --- 연관관계 편의 메서드 ---
     public void setMember(Member member) {
         this.member = member;
@@ -49,6 +68,10 @@ public class Order {
     public void addOrderItem(OrderItem orderItem) {
         orderItems.add(orderItem);
         orderItem.setOrder(this);
+        if (totalPrice != null) {
+            totalPrice += orderItem.getTotalPrice();
+            itemCount++;
+        }
     }
 
     public void setDelivery(Delivery delivery) {
@@ -72,16 +95,20 @@ public class Order {
     // === 비즈니스 로직 === //
 
     /**
-     * 주문 취소
+     * 주문 취소 (재고 복구는 호출한 쪽이 정한다 - StockService 는 주문상품을 상품별로 모아서 한번에 반영한다)
+     * - 재고 복구와 RELEASE 기록이 빠지지 않도록 StockService.cancel 을 통해서만 호출한다
      */
-    public void cancel() {
+    public void cancel(Consumer<OrderItem> restock) {
+        if (status == OrderStatus.CANCEL) {
+            throw new IllegalStateException("이미 취소된 주문입니다.");
+        }
         if (delivery.getStatus() == DeliveryStatus.COMP) {
             throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다");
         }
 
-        this.status = OrderStatus.CANCEL;
+        this.status = OrderStatus.CANCEL; // 총액, 줄 수는 주문 당시 값으로 남기고 집계에서는 status 로 구분한다
         for (OrderItem orderItem : orderItems) {
-            orderItem.cancel();
+            restock.accept(orderItem);
         }
     }
 
@@ -89,8 +116,14 @@ public class Order {
 
     /**
      * 전체 주문 가격 조회
+     * - 저장된 total_price 를 사용하므로 orderItems 지연 로딩이 일어나지 않는다
+     * - 아직 백필되지 않은 주문만 주문상품을 순회해서 계산한다
      */
     public int getTotalPrice() {
+        if (totalPrice != null) {
+            return totalPrice;
+        }
+
         int totalPrice = 0;
         for (OrderItem orderItem : orderItems) {
             totalPrice += orderItem.getTotalPrice();
@@ -101,4 +134,8 @@ public class Order {
 //      ->  return orderItems.stream().mapToInt(OrderItem::getTotalPrice).sum();
     }
 
+    public int getItemCount() {
+        return itemCount != null ? itemCount : orderItems.size();
+    }
+
 }
@@ -0,0 +1,77 @@
+package jpabook.springboot_jpa.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 주문 접수 명령 (outbox)
+ * - 요청 스레드는 검증 후 이 행만 저장하고 202 로 응답한다
+ * - OrderCommandProcessor 가 PENDING 을 묶음으로 가져가(claim) 주문을 만들고 DONE / FAILED 로 바꾼다
+ * - 주문 상품은 "itemId:count,itemId:count" 형태로 한 컬럼에 담는다 (OrderLine.encode / decode)
+ */
+@Entity
+@Getter
+@Table(name = "order_command", indexes = {
+        @Index(name = "idx_order_command_status_id", columnList = "status, order_command_id"), // 대기 명령 조회용
+        @Index(name = "idx_order_command_tracking_id", columnList = "tracking_id", unique = true),
+        @Index(name = "idx_order_command_claim_token", columnList = "claim_token")
+})
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderCommand {
+
+    @Id
+    @GeneratedValue
+    @Column(name = "order_command_id")
+    private Long id;
+
+    @Column(name = "tracking_id", length = 36)
+    private String trackingId; // 클라이언트가 상태를 조회할 때 쓰는 id
+
+    private Long memberId;
+
+    @Column(length = 4000)
+    private String lines;
+
+    @Enumerated(EnumType.STRING)
+    private OrderCommandStatus status;
+
+    @Column(name = "claim_token", length = 36)
+    private String claimToken; // 처리 중인 워커 묶음 표시
+
+    private Long orderId; // 처리 결과 주문 id
+
+    private String failureReason;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime claimedAt;
+    private LocalDateTime processedAt;
+
+    // === 생성 메서드 === //
+    public static OrderCommand create(Long memberId, String lines) {
+        OrderCommand command = new OrderCommand();
+        command.trackingId = UUID.randomUUID().toString();
+        command.memberId = memberId;
+        command.lines = lines;
+        command.status = OrderCommandStatus.PENDING;
+        command.createdAt = LocalDateTime.now();
+        return command;
+    }
+
+    // === 비즈니스 로직 === //
+    public void done(Long orderId) {
+        this.status = OrderCommandStatus.DONE;
+        this.orderId = orderId;
+        this.processedAt = LocalDateTime.now();
+    }
+
+    public void fail(String reason) {
+        this.status = OrderCommandStatus.FAILED;
+        this.failureReason = reason != null && reason.length() > 255 ? reason.substring(0, 255) : reason;
+        this.processedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,5 @@
+package jpabook.springboot_jpa.domain;
+
+public enum OrderCommandStatus {
+    PENDING, PROCESSING, DONE, FAILED
+}
@@ -33,20 +33,21 @@ public class OrderItem {
 
     // === 생성 메서드 === //
     public static OrderItem createOrderItem(Item item, int orderPrice, int count) {
+        item.removeStock(count);
+        return createReservedOrderItem(item, orderPrice, count);
+    }
+
+    /**
+     * 재고를 이미 예약한 주문상품 생성 (인기 상품은 StockService 가 메모리 카운터에서 차감한다)
+     */
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
         OrderItem orderItem = new OrderItem();
         orderItem.setItem(item);
         orderItem.setOrderPrice(orderPrice);
         orderItem.setCount(count);
-
-        item.removeStock(count);
         return orderItem;
     }
 
-    // === 비즈니스 로직 === //
-    public void cancel() {
-        getItem().addStock(count);
-    }
-
     // === 조회 로직 === //
 
     /**
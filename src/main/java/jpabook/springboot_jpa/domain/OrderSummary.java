@@ -0,0 +1,64 @@
+package jpabook.springboot_jpa.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록 조회용 요약 테이블 (읽기 모델)
+ * - 목록 화면이 매번 orders, member, delivery 를 조인하지 않도록 필요한 컬럼만 한 테이블에 펼쳐 둔다
+ * - 직접 수정하지 않고 OrderSummaryProjector 가 주문/회원 변경 이벤트를 받아 커밋 후에 갱신한다
+ */
+@Entity
+@Getter
+@Table(name = "order_summary", indexes = {
+        @Index(name = "idx_order_summary_order_date_id", columnList = "order_date, order_id"), // 키셋 페이징용
+        @Index(name = "idx_order_summary_status_order_date", columnList = "status, order_date"), // 상태 검색용
+        @Index(name = "idx_order_summary_member_id", columnList = "member_id") // 회원 이름 변경 반영용
+})
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderSummary {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId; // 주문 id 를 그대로 사용
+
+    @Column(name = "member_id")
+    private Long memberId;
+
+    private String memberName;
+
+    @Column(name = "order_date")
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Embedded
+    private Address address;
+
+    private int totalPrice;
+
+    private int itemCount;
+
+    private LocalDateTime projectedAt; // 마지막으로 반영한 시간
+
+    public OrderSummary(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public void update(Long memberId, String memberName, LocalDateTime orderDate, OrderStatus status, Address address,
+                       int totalPrice, int itemCount) {
+        this.memberId = memberId;
+        this.memberName = memberName;
+        this.orderDate = orderDate;
+        this.status = status;
+        this.address = address;
+        this.totalPrice = totalPrice;
+        this.itemCount = itemCount;
+        this.projectedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,50 @@
+package jpabook.springboot_jpa.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 일별 상품 매출 집계 (롤업 테이블)
+ * - (날짜, 상품) 당 한 행이므로 월 단위 리포트도 수백 행만 읽으면 된다
+ * - 직접 수정하지 않고 SalesRollupService 가 insert-select 로 다시 만든다 (취소 주문은 제외)
+ */
+@Entity
+@Getter
+@Table(name = "sales_daily", indexes = {
+        @Index(name = "idx_sales_daily_item_type", columnList = "item_type, sales_date")
+})
+@IdClass(SalesDaily.Key.class)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class SalesDaily {
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(name = "item_type")
+    private String itemType; // item.dtype
+
+    private long revenue; // 매출 (주문가격 * 수량)
+
+    private long units; // 판매 수량
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private LocalDate salesDate;
+        private Long itemId;
+    }
+}
@@ -0,0 +1,61 @@
+package jpabook.springboot_jpa.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 재고 변동 기록 (append-only journal)
+ * - 모든 재고 변경(주문, 취소, 등록/수정)을 한 행씩 남긴다. 행은 지우거나 고치지 않고, applied 만 한번 true 로 바뀐다
+ * - quantity 는 부호가 있는 변동량 (RESERVE -, RELEASE +, ADJUST +/-)
+ * - 일반 상품은 item 재고를 같은 트랜잭션에서 바꾸므로 applied = true 로 저장한다
+ * - 인기 상품은 item 대신 이 행만 insert 하고(applied = false), StockService 가 주기적으로 모아서 item 에 반영한다
+ *   재시작 시에도 미반영 행을 먼저 반영한다
+ * - 상품별 applied 합계가 item.stock_quantity 와 같아야 한다 (StockService.reconcile)
+ */
+@Entity
+@Getter
+@Table(name = "stock_movement", indexes = {
+        @Index(name = "idx_stock_movement_applied_id", columnList = "applied, stock_movement_id"), // 미반영 행 조회용
+        @Index(name = "idx_stock_movement_item_id", columnList = "item_id, stock_movement_id"), // 상품별 이력
+        @Index(name = "idx_stock_movement_order_id", columnList = "order_id")
+})
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class StockMovement {
+
+    @Id
+    @GeneratedValue
+    @Column(name = "stock_movement_id")
+    private Long id;
+
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private StockMovementType type;
+
+    private int quantity;
+
+    @Column(name = "order_id")
+    private Long orderId; // 주문/취소로 생긴 변동만
+
+    private boolean applied;
+
+    private LocalDateTime createdAt;
+
+    // === 생성 메서드 === //
+    public static StockMovement create(Long itemId, StockMovementType type, int quantity, Long orderId, boolean applied) {
+        StockMovement movement = new StockMovement();
+        movement.itemId = itemId;
+        movement.type = type;
+        movement.quantity = quantity;
+        movement.orderId = orderId;
+        movement.applied = applied;
+        movement.createdAt = LocalDateTime.now();
+        return movement;
+    }
+}
@@ -0,0 +1,11 @@
+package jpabook.springboot_jpa.domain;
+
+/**
+ * 재고 변동 종류
+ * - RESERVE : 주문으로 차감 (-)
+ * - RELEASE : 주문 취소로 복구 (+)
+ * - ADJUST  : 상품 등록 시 시작 재고, 관리자 수정 등 주문과 무관한 변경 (+/-)
+ */
+public enum StockMovementType {
+    RESERVE, RELEASE, ADJUST
+}
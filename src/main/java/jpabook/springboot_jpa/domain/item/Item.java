@@ -3,15 +3,24 @@ package jpabook.springboot_jpa.domain.item;
 import jakarta.persistence.*;
 import jpabook.springboot_jpa.domain.Category;
 import jpabook.springboot_jpa.exception.NotEnoughStockException;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item") // 재고 변경 시 soft lock 으로 오래된 값이 읽히지 않게 한다
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "dtype")
+@Table(name = "item", indexes = {
+        @Index(name = "idx_item_dtype_price", columnList = "dtype, price"), // 상품 목록 종류 + 가격 범위 필터, 종류별 개수
+        @Index(name = "idx_item_price", columnList = "price")
+})
 @Getter
 @Setter
 public class Item {
@@ -25,6 +34,30 @@ public class Item {
     private int price;
     private int stockQuantity;
 
+    /**
+     * 낙관적 락 버전
+     * - 재고 변경(read-modify-write)이 동시에 일어나면 나중에 커밋하는 쪽이 실패한다 (갱신 분실/초과 판매 방지)
+     * - 실패한 주문은 OptimisticLockRetryExecutor 가 새 트랜잭션으로 다시 시도한다
+     */
+    @Version
+    private Long version;
+
+    /**
+     * 상품 종류 (B: Book, A: Album, M: Movie)
+     * - 구분 컬럼을 읽기 전용으로 한번 더 매핑해서 JPQL 에서 group by, where 에 바로 쓴다
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "dtype", insertable = false, updatable = false)
+    private String dtype;
+
+    /**
+     * 인기 상품 재고 모드
+     * - true 면 주문/취소 재고를 StockService 의 메모리 카운터로 처리하고 item 행에는 주기적으로 모아서 반영한다
+     * - 켜는 것은 StockService.enable 로 한다 (카운터를 만들면서 함께 켜야 하므로), 끄려면 false 로 바꾸고 재시작한다
+     */
+    @Column(name = "hot_stock")
+    private boolean hotStock;
+
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<>();
 
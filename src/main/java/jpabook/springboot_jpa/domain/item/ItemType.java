@@ -0,0 +1,50 @@
+package jpabook.springboot_jpa.domain.item;
+
+import jakarta.persistence.DiscriminatorValue;
+import lombok.Getter;
+
+/**
+ * 상품 종류와 구분 컬럼(dtype) 값
+ * - dtype 은 각 하위 클래스의 @DiscriminatorValue 를 그대로 읽는다
+ */
+@Getter
+public enum ItemType {
+
+    BOOK(Book.class),
+    ALBUM(Album.class),
+    MOVIE(Movie.class);
+
+    private final Class<? extends Item> javaType;
+    private final String dtype;
+    private final String label;
+
+    ItemType(Class<? extends Item> type) {
+        this.javaType = type;
+        this.dtype = type.getAnnotation(DiscriminatorValue.class).value();
+        this.label = type.getSimpleName();
+    }
+
+    public static ItemType fromDtype(String dtype) {
+        for (ItemType type : values()) {
+            if (type.dtype.equals(dtype)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 상품 종류입니다. dtype=" + dtype);
+    }
+
+    /**
+     * 저장 직후(같은 영속성 컨텍스트)에는 읽기 전용 dtype 이 비어 있으므로 클래스로 판단한다
+     */
+    public static ItemType of(Item item) {
+        if (item.getDtype() != null) {
+            return fromDtype(item.getDtype());
+        }
+        for (ItemType type : values()) {
+            if (type.javaType.isInstance(item)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 상품 종류입니다. " + item.getClass());
+    }
+}
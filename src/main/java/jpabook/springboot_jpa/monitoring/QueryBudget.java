@@ -0,0 +1,18 @@
+package jpabook.springboot_jpa.monitoring;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 요청 하나에서 실행할 수 있는 SQL 수 상한
+ * - 넘으면 경고 로그를 남기고, jpashop.query-budget.fail-on-exceed=true 이면 요청을 실패시킨다 (테스트에서 N + 1 회귀 검출)
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int value();
+
+}
@@ -0,0 +1,34 @@
+package jpabook.springboot_jpa.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jpabook.springboot_jpa.exception.QueryBudgetExceededException;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * jpashop.query-budget.fail-on-exceed=true 일 때만 등록 (테스트에서 N + 1 회귀 검출)
+ * - 예산 검사는 본문을 다 쓴 뒤(afterCompletion)에 하므로, 그때까지 본문을 버퍼에 모아두고 실제 응답으로 보내지 않는다
+ * - 예산을 넘었으면 버퍼를 버리고 예외로 요청을 실패시키고, 아니면 버퍼를 그대로 응답에 복사한다
+ * - 본문 전체를 메모리에 올리므로 운영에서는 켜지 않는다
+ */
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        Object exceeded = request.getAttribute(QueryStatsInterceptor.BUDGET_EXCEEDED);
+        if (exceeded != null) {
+            throw new QueryBudgetExceededException(exceeded.toString());
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+}
@@ -0,0 +1,24 @@
+package jpabook.springboot_jpa.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 이벤트로 SQL 실행을 현재 요청의 QueryStats 에 기록한다
+ * (p6spy-spring-boot-starter 가 JdbcEventListener 빈을 자동으로 등록)
+ */
+@Component
+public class QueryCountListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryStats stats = QueryStatsHolder.current();
+        if (stats != null) {
+            stats.record(statementInformation.getSql(), timeElapsedNanos);
+        }
+    }
+
+}
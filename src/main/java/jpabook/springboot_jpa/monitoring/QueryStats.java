@@ -0,0 +1,62 @@
+package jpabook.springboot_jpa.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 요청 하나에서 실행된 SQL 통계
+ * - 실행 수, JDBC 실행 시간 합계, SQL 모양(shape)별 실행 수
+ * - 같은 모양의 SQL 이 여러 번 반복되면 N + 1 을 의심할 수 있다
+ */
+public class QueryStats {
+
+    // 바인딩 파라미터를 쓰지 않은 SQL 도 같은 모양으로 묶이도록 리터럴을 ? 로 바꾼다
+    private static final Pattern LITERALS = Pattern.compile("'[^']*'|\\b\\d+\\b");
+
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final Map<String, LongAdder> shapes = new ConcurrentHashMap<>();
+
+    public void record(String sql, long elapsedNanos) {
+        count.incrementAndGet();
+        totalNanos.addAndGet(elapsedNanos);
+        if (sql != null) {
+            shapes.computeIfAbsent(shapeOf(sql), k -> new LongAdder()).increment();
+        }
+    }
+
+    public int getCount() {
+        return count.get();
+    }
+
+    public long getTotalMillis() {
+        return totalNanos.get() / 1_000_000;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    /**
+     * threshold 번 이상 반복된 SQL 모양
+     */
+    public Map<String, Long> getRepeatedShapes(int threshold) {
+        Map<String, Long> repeated = new LinkedHashMap<>();
+        shapes.forEach((shape, times) -> {
+            if (times.sum() >= threshold) {
+                repeated.put(shape, times.sum());
+            }
+        });
+        return repeated;
+    }
+
+    static String shapeOf(String sql) {
+        return LITERALS.matcher(sql.trim().replaceAll("\\s+", " ")).replaceAll("?");
+    }
+
+}
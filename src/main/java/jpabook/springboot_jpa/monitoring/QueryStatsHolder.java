@@ -0,0 +1,29 @@
+package jpabook.springboot_jpa.monitoring;
+
+/**
+ * 현재 요청의 QueryStats 를 스레드에 보관한다
+ * - QueryStatsInterceptor 가 요청 시작 시 만들고, 끝나면 지운다
+ * - 요청 밖(배치, 스케줄러 등)에서는 null 이므로 기록하지 않는다
+ */
+public final class QueryStatsHolder {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private QueryStatsHolder() {
+    }
+
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+}
@@ -0,0 +1,146 @@
+package jpabook.springboot_jpa.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청별 SQL 실행 수 / 실행 시간 / 반복된 SQL 모양(N + 1 의심) 집계
+ * - 응답 헤더: X-Query-Count, X-Query-Time-Ms, X-Query-Repeated
+ * - 메트릭: http.server.requests.sql.count, http.server.requests.sql.time, http.server.requests.sql.repeated (uri 태그)
+ * - @QueryBudget 이 붙은 핸들러는 상한을 넘으면 경고 로그, fail-on-exceed 설정 시 요청 실패 (QueryBudgetFilter)
+ * 헤더는 응답 본문을 쓰기 전에 넣어야 하므로 @ResponseBody 는 QueryStatsResponseAdvice, 뷰는 postHandle 에서 넣는다
+ * - 그래서 헤더에는 본문 직렬화/뷰 렌더링 중에 실행된 SQL(OSIV 지연 로딩 등)이 빠진다
+ * - 메트릭, N + 1 로그, 예산 검사는 응답을 다 쓴 뒤 afterCompletion 에서 하므로 그 SQL 까지 포함한다
+ */
+@Slf4j
+@Component
+public class QueryStatsInterceptor implements HandlerInterceptor {
+
+    public static final String HEADER_COUNT = "X-Query-Count";
+    public static final String HEADER_TIME = "X-Query-Time-Ms";
+    public static final String HEADER_REPEATED = "X-Query-Repeated";
+
+    /**
+     * 예산을 넘으면 메시지를 담는 요청 속성 (fail-on-exceed 일 때 QueryBudgetFilter 가 읽는다)
+     */
+    public static final String BUDGET_EXCEEDED = QueryStatsInterceptor.class.getName() + ".BUDGET_EXCEEDED";
+
+    private static final String HEADERS_WRITTEN = QueryStatsInterceptor.class.getName() + ".HEADERS_WRITTEN";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean failOnExceed;
+    private final int repeatThreshold;
+
+    public QueryStatsInterceptor(MeterRegistry meterRegistry,
+                                 @Value("${jpashop.query-budget.fail-on-exceed:false}") boolean failOnExceed,
+                                 @Value("${jpashop.query-budget.repeat-threshold:3}") int repeatThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.failOnExceed = failOnExceed;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            QueryStatsHolder.start();
+        }
+        return true;
+    }
+
+    /**
+     * 뷰를 렌더링하기 전 (@ResponseBody 는 이미 본문을 쓴 뒤라 QueryStatsResponseAdvice 에서 처리됨)
+     */
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) {
+        if (handler instanceof HandlerMethod) {
+            writeHeaders(request, response);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryStats stats = QueryStatsHolder.current();
+        if (stats == null) {
+            return;
+        }
+
+        try {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+            Map<String, Long> repeated = stats.getRepeatedShapes(repeatThreshold);
+
+            DistributionSummary.builder("http.server.requests.sql.count")
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(stats.getCount());
+            Timer.builder("http.server.requests.sql.time")
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(stats.getTotalNanos(), TimeUnit.NANOSECONDS);
+            if (!repeated.isEmpty()) {
+                meterRegistry.counter("http.server.requests.sql.repeated", "uri", uri).increment();
+                log.warn("N + 1 의심 [{} {}] 반복된 SQL: {}", request.getMethod(), request.getRequestURI(), repeated);
+            }
+
+            if (handler instanceof HandlerMethod) {
+                checkBudget(request, stats, repeated, ((HandlerMethod) handler).getMethod());
+            }
+        } finally {
+            QueryStatsHolder.clear();
+        }
+    }
+
+    /**
+     * 응답 헤더 추가 (요청당 한번만, 본문을 쓰기 전까지 실행된 SQL 기준)
+     */
+    void writeHeaders(HttpServletRequest request, HttpServletResponse response) {
+        QueryStats stats = QueryStatsHolder.current();
+        if (stats == null || request.getAttribute(HEADERS_WRITTEN) != null) {
+            return;
+        }
+        request.setAttribute(HEADERS_WRITTEN, Boolean.TRUE);
+
+        response.setHeader(HEADER_COUNT, String.valueOf(stats.getCount()));
+        response.setHeader(HEADER_TIME, String.valueOf(stats.getTotalMillis()));
+        response.setHeader(HEADER_REPEATED, String.valueOf(stats.getRepeatedShapes(repeatThreshold).size()));
+    }
+
+    /**
+     * 예산 검사 (응답 본문까지 쓴 뒤의 최종 SQL 수 기준)
+     * - 응답은 이미 쓰였으므로 여기서는 상태를 바꿀 수 없다. fail-on-exceed 이면 요청 속성에 남기고 QueryBudgetFilter 가 실패시킨다
+     */
+    private void checkBudget(HttpServletRequest request, QueryStats stats, Map<String, Long> repeated, Method handlerMethod) {
+        QueryBudget budget = findBudget(handlerMethod);
+        if (budget == null || stats.getCount() <= budget.value()) {
+            return;
+        }
+
+        String message = String.format("SQL 실행 수 초과 [%s %s] budget=%d, actual=%d, repeated=%s",
+                request.getMethod(), request.getRequestURI(), budget.value(), stats.getCount(), repeated);
+        log.error(message);
+        if (failOnExceed) {
+            request.setAttribute(BUDGET_EXCEEDED, message);
+        }
+    }
+
+    private static QueryBudget findBudget(Method method) {
+        QueryBudget budget = AnnotatedElementUtils.findMergedAnnotation(method, QueryBudget.class);
+        return budget != null ? budget : AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), QueryBudget.class);
+    }
+
+}
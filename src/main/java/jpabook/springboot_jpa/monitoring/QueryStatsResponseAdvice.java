@@ -0,0 +1,40 @@
+package jpabook.springboot_jpa.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * @ResponseBody 응답은 본문을 쓰기 직전에 SQL 통계 헤더를 넣는다
+ * - 예산 검사는 직렬화 중 지연 로딩까지 세도록 QueryStatsInterceptor.afterCompletion 에서 한다
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class QueryStatsResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private final QueryStatsInterceptor queryStatsInterceptor;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.getMethod() != null;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest && response instanceof ServletServerHttpResponse) {
+            queryStatsInterceptor.writeHeaders(((ServletServerHttpRequest) request).getServletRequest(),
+                    ((ServletServerHttpResponse) response).getServletResponse());
+        }
+        return body;
+    }
+
+}
@@ -0,0 +1,28 @@
+package jpabook.springboot_jpa.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class QueryStatsWebConfig implements WebMvcConfigurer {
+
+    private final QueryStatsInterceptor queryStatsInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(queryStatsInterceptor)
+                .excludePathPatterns("/css/**", "/js/**", "/error");
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "jpashop.query-budget.fail-on-exceed", havingValue = "true")
+    public QueryBudgetFilter queryBudgetFilter() {
+        return new QueryBudgetFilter();
+    }
+
+}
@@ -0,0 +1,65 @@
+package jpabook.springboot_jpa.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 2차 캐시(JCache) 리전별 적중/미스/제거 메트릭
+ * - 적중/미스/저장은 Hibernate 통계(hibernate-micrometer)로도 나오지만, 제거(eviction) 수는 캐시 구현체만 알고 있다
+ * - JCache 표준 통계 MBean(javax.cache:type=CacheStatistics)을 읽기 때문에 캐시 구현체를 바꿔도 그대로 동작한다
+ */
+@Slf4j
+@Component
+public class SecondLevelCacheMetrics implements MeterBinder {
+
+    private static final Map<String, String> ATTRIBUTES = Map.of(
+            "jcache.hits", "CacheHits",
+            "jcache.misses", "CacheMisses",
+            "jcache.puts", "CachePuts",
+            "jcache.evictions", "CacheEvictions");
+
+    private final EntityManagerFactory entityManagerFactory; // 캐시 리전이 먼저 만들어지도록 의존
+
+    public SecondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> caches;
+        try {
+            caches = server.queryNames(new ObjectName("javax.cache:type=CacheStatistics,*"), null);
+        } catch (JMException e) {
+            log.warn("2차 캐시 통계 MBean 조회 실패", e);
+            return;
+        }
+
+        for (ObjectName cache : caches) {
+            ATTRIBUTES.forEach((metric, attribute) ->
+                    FunctionCounter.builder(metric, server, s -> read(s, cache, attribute))
+                            .tag("cache", cache.getKeyProperty("Cache"))
+                            .register(registry));
+        }
+    }
+
+    private static double read(MBeanServer server, ObjectName cache, String attribute) {
+        try {
+            return ((Number) server.getAttribute(cache, attribute)).doubleValue();
+        } catch (JMException e) {
+            return Double.NaN;
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package jpabook.springboot_jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Category;
+import jpabook.springboot_jpa.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category); // 클로저 행(ancestors)도 함께 저장된다
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    /**
+     * 하위 카테고리 전체 (자신 제외, 가까운 단계 순)
+     * - 단계마다 child 를 지연 로딩하지 않고 클로저 테이블로 한번에 조회한다
+     */
+    public List<Category> findDescendants(Long categoryId) {
+        return em.createQuery(
+                        "select c from CategoryClosure cc" +
+                                " join cc.descendant c" +
+                                " where cc.ancestor.id = :categoryId" +
+                                " and cc.depth > 0" +
+                                " order by cc.depth, c.id", Category.class)
+                .setParameter("categoryId", categoryId)
+                .getResultList();
+    }
+
+    /**
+     * 하위 트리(자신 포함)에 속한 모든 상품
+     * - category_closure -> category_item -> item 을 조인 한번으로 조회한다
+     * - 여러 카테고리에 걸친 상품은 한번만 나온다
+     */
+    public List<Item> findItemsInSubtree(Long categoryId) {
+        return em.createQuery(
+                        "select distinct i from CategoryClosure cc" +
+                                " join cc.descendant c" +
+                                " join c.items i" +
+                                " where cc.ancestor.id = :categoryId" +
+                                " order by i.id", Item.class)
+                .setParameter("categoryId", categoryId)
+                .getResultList();
+    }
+
+    /**
+     * 트리 스냅샷용 (id, name, parentId) 전체
+     */
+    public List<Object[]> findAllNodes() {
+        return em.createQuery("select c.id, c.name, p.id from Category c left join c.parent p order by c.id", Object[].class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+    }
+}
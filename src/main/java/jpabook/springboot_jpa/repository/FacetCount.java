@@ -0,0 +1,17 @@
+package jpabook.springboot_jpa.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 검색 조건별 개수 (상품 종류별, 카테고리별)
+ */
+@Data
+@AllArgsConstructor
+public class FacetCount {
+
+    private String key;
+    private String label;
+    private long count;
+
+}
@@ -0,0 +1,34 @@
+package jpabook.springboot_jpa.repository;
+
+import jpabook.springboot_jpa.domain.item.Album;
+import jpabook.springboot_jpa.domain.item.Book;
+import jpabook.springboot_jpa.domain.item.Item;
+import jpabook.springboot_jpa.domain.item.ItemType;
+import jpabook.springboot_jpa.domain.item.Movie;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 비트맵 인덱스에 넣는 상품 속성 값
+ */
+@Getter
+@RequiredArgsConstructor
+public class ItemAttributes {
+
+    private final long itemId;
+    private final ItemType type;
+    private final boolean inStock;
+    private final String author; // Book
+    private final String artist; // Album
+    private final String director; // Movie
+
+    public static ItemAttributes of(Item item) {
+        return new ItemAttributes(
+                item.getId(),
+                ItemType.of(item),
+                item.getStockQuantity() > 0,
+                item instanceof Book book ? book.getAuthor() : null,
+                item instanceof Album album ? album.getArtist() : null,
+                item instanceof Movie movie ? movie.getDirector() : null);
+    }
+}
@@ -1,17 +1,38 @@
 package jpabook.springboot_jpa.repository;
 
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.QCategory;
+import jpabook.springboot_jpa.domain.QCategoryClosure;
 import jpabook.springboot_jpa.domain.item.Item;
-import lombok.RequiredArgsConstructor;
+import jpabook.springboot_jpa.domain.item.ItemType;
+import jpabook.springboot_jpa.domain.item.QItem;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static jpabook.springboot_jpa.domain.item.QItem.item;
 
 @Repository
-@RequiredArgsConstructor
 public class ItemRepository {
 
     private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public ItemRepository(EntityManager em) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+    }
 
     public void save(Item item) {
         if (item.getId() == null) {
@@ -36,9 +57,152 @@ public class ItemRepository {
         return em.find(Item.class, id);
     }
 
+    /**
+     * 여러 상품을 IN 쿼리 한번으로 조회
+     */
+    public List<Item> findAllById(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /**
+     * 상품 목록은 화면마다 조회하므로 쿼리 캐시 사용 (item 테이블이 변경되면 자동으로 무효화)
+     */
     public List<Item> findAll() {
         return em.createQuery("select i from Item i", Item.class)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
                 .getResultList();
     }
 
+    /**
+     * 상품 목록 (키셋 페이징)
+     * - item_id 순으로 afterId 다음부터 limit 개만 읽으므로 페이지가 깊어져도 앞 row 를 읽고 버리지 않는다
+     */
+    public List<Item> search(ItemSearch itemSearch, Long afterId, int limit) {
+        return queryFactory
+                .selectFrom(item)
+                .where(typeEq(itemSearch.getType()),
+                        priceGoe(itemSearch.getMinPrice()),
+                        priceLoe(itemSearch.getMaxPrice()),
+                        inCategory(itemSearch.getCategoryId()),
+                        afterId == null ? null : item.id.gt(afterId))
+                .orderBy(item.id.asc())
+                .limit(limit)
+                .fetch();
+    }
+
+    /**
+     * 상품 종류별 개수 (GROUP BY 한번)
+     * - 종류 조건은 빼고 센다 (다른 종류를 골랐을 때 몇 개가 나오는지 보여주기 위해)
+     */
+    public Map<ItemType, Long> countByType(ItemSearch itemSearch) {
+        List<Tuple> rows = queryFactory
+                .select(item.dtype, item.count())
+                .from(item)
+                .where(priceGoe(itemSearch.getMinPrice()),
+                        priceLoe(itemSearch.getMaxPrice()),
+                        inCategory(itemSearch.getCategoryId()))
+                .groupBy(item.dtype)
+                .fetch();
+
+        Map<ItemType, Long> counts = new LinkedHashMap<>();
+        for (Tuple row : rows) {
+            counts.put(ItemType.fromDtype(row.get(item.dtype)), row.get(item.count()));
+        }
+        return counts;
+    }
+
+    /**
+     * 카테고리별 하위 트리 상품 개수 (GROUP BY 한번)
+     * - 클로저 테이블로 각 카테고리의 하위 트리 전체를 한번에 조인하고, 여러 하위 카테고리에 걸친 상품은 한번만 센다
+     * - 카테고리 조건은 빼고 센다 (categoryIds 가 이미 선택한 카테고리의 하위이므로)
+     */
+    public Map<Long, Long> countByCategory(ItemSearch itemSearch, Collection<Long> categoryIds) {
+        if (categoryIds.isEmpty()) {
+            return Map.of();
+        }
+        QCategoryClosure closure = QCategoryClosure.categoryClosure;
+        QCategory category = QCategory.category;
+
+        List<Tuple> rows = queryFactory
+                .select(closure.ancestor.id, item.id.countDistinct())
+                .from(closure)
+                .join(closure.descendant, category)
+                .join(category.items, item)
+                .where(closure.ancestor.id.in(categoryIds),
+                        typeEq(itemSearch.getType()),
+                        priceGoe(itemSearch.getMinPrice()),
+                        priceLoe(itemSearch.getMaxPrice()))
+                .groupBy(closure.ancestor.id)
+                .fetch();
+
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        for (Tuple row : rows) {
+            counts.put(row.get(closure.ancestor.id), row.get(item.id.countDistinct()));
+        }
+        return counts;
+    }
+
+    /**
+     * 비트맵 인덱스 생성용 전체 상품 속성
+     * - SINGLE_TABLE 이라 item 테이블 한번만 훑으면 되고, 엔티티를 만들지 않도록 컬럼만 읽는다
+     */
+    public void forEachIndexRow(Consumer<ItemAttributes> action) {
+        try (Stream<?> rows = em.createNativeQuery(
+                        "select item_id, dtype, stock_quantity, author, artist, director from item")
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                .getResultStream()) {
+            rows.map(Object[].class::cast).forEach(row -> action.accept(new ItemAttributes(
+                    ((Number) row[0]).longValue(),
+                    ItemType.fromDtype((String) row[1]),
+                    ((Number) row[2]).intValue() > 0,
+                    (String) row[3],
+                    (String) row[4],
+                    (String) row[5])));
+        }
+    }
+
+    /**
+     * 비트맵 인덱스 생성용 (카테고리 id, 상품 id) 전체
+     */
+    public void forEachCategoryItem(BiConsumer<Long, Long> action) {
+        try (Stream<?> rows = em.createNativeQuery("select category_id, item_id from category_item")
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                .getResultStream()) {
+            rows.map(Object[].class::cast)
+                    .forEach(row -> action.accept(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+        }
+    }
+
+    private BooleanExpression typeEq(ItemType type) {
+        return type == null ? null : item.dtype.eq(type.getDtype());
+    }
+
+    private BooleanExpression priceGoe(Integer minPrice) {
+        return minPrice == null ? null : item.price.goe(minPrice);
+    }
+
+    private BooleanExpression priceLoe(Integer maxPrice) {
+        return maxPrice == null ? null : item.price.loe(maxPrice);
+    }
+
+    /**
+     * 카테고리 하위 트리 조건 (category_closure -> category_item 서브쿼리)
+     */
+    private BooleanExpression inCategory(Long categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        QCategoryClosure closure = QCategoryClosure.categoryClosure;
+        QCategory category = QCategory.category;
+        QItem categoryItem = new QItem("categoryItem");
+        return item.id.in(JPAExpressions
+                .select(categoryItem.id)
+                .from(closure)
+                .join(closure.descendant, category)
+                .join(category.items, categoryItem)
+                .where(closure.ancestor.id.eq(categoryId)));
+    }
+
 }
@@ -0,0 +1,16 @@
+package jpabook.springboot_jpa.repository;
+
+import jpabook.springboot_jpa.domain.item.ItemType;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ItemSearch {
+
+    private ItemType type; // 상품 종류 [BOOK, ALBUM, MOVIE]
+    private Integer minPrice; // 최소 가격 (포함)
+    private Integer maxPrice; // 최대 가격 (포함)
+    private Long categoryId; // 이 카테고리와 모든 하위 카테고리
+
+}
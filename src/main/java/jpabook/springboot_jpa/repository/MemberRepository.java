@@ -1,7 +1,10 @@
 package jpabook.springboot_jpa.repository;
 
+import jakarta.persistence.QueryHint;
 import jpabook.springboot_jpa.domain.Member;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 
@@ -10,4 +13,9 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     // select m from Member m where m.name = :name -> 이렇게 자동으로 만들어버림
     List<Member> findByName(String name);
 
+    // 회원 목록은 주문 화면마다 조회하므로 쿼리 캐시 사용 (member 테이블이 변경되면 자동으로 무효화)
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Member> findAll();
+
 }
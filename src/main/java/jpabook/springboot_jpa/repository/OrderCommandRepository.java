@@ -0,0 +1,91 @@
+package jpabook.springboot_jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jpabook.springboot_jpa.domain.OrderCommand;
+import jpabook.springboot_jpa.domain.OrderCommandStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderCommandRepository {
+
+    private final EntityManager em;
+
+    public void save(OrderCommand command) {
+        em.persist(command);
+    }
+
+    public OrderCommand findOne(Long id) {
+        return em.find(OrderCommand.class, id);
+    }
+
+    /**
+     * claimToken 으로 가져간 명령을 행 잠금(PESSIMISTIC_WRITE)으로 조회 (아직 PROCESSING 이고 토큰이 같을 때만)
+     * - releaseStale, claim 의 update 도 같은 행을 잠그므로, 확인한 뒤 커밋할 때까지 다른 워커에게 넘어가지 않는다
+     * - 오래 걸려서 다시 대기 상태로 돌아갔다가 다른 워커가 가져간 명령이면 비어 있다
+     */
+    public Optional<OrderCommand> findClaimed(Long id, String claimToken) {
+        OrderCommand command = em.find(OrderCommand.class, id, LockModeType.PESSIMISTIC_WRITE);
+        if (command == null || command.getStatus() != OrderCommandStatus.PROCESSING || !claimToken.equals(command.getClaimToken())) {
+            return Optional.empty();
+        }
+        return Optional.of(command);
+    }
+
+    public Optional<OrderCommand> findByTrackingId(String trackingId) {
+        return em.createQuery("select c from OrderCommand c where c.trackingId = :trackingId", OrderCommand.class)
+                .setParameter("trackingId", trackingId)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * 대기 중인 명령을 limit 개까지 가져간다 (claim)
+     * - 먼저 PENDING id 를 읽고, 아직 PENDING 인 행만 조건부 update 로 claimToken 을 찍는다
+     * - 다른 인스턴스가 같은 행을 먼저 가져갔으면 update 에서 빠지므로 SKIP LOCKED 없이도 중복 처리되지 않는다
+     */
+    public List<Long> claim(String claimToken, int limit) {
+        List<Long> ids = em.createQuery(
+                        "select c.id from OrderCommand c where c.status = :status order by c.id", Long.class)
+                .setParameter("status", OrderCommandStatus.PENDING)
+                .setMaxResults(limit)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        em.createQuery("update OrderCommand c" +
+                        " set c.status = :processing, c.claimToken = :claimToken, c.claimedAt = :now" +
+                        " where c.id in :ids and c.status = :pending")
+                .setParameter("processing", OrderCommandStatus.PROCESSING)
+                .setParameter("claimToken", claimToken)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("ids", ids)
+                .setParameter("pending", OrderCommandStatus.PENDING)
+                .executeUpdate();
+
+        return em.createQuery(
+                        "select c.id from OrderCommand c where c.claimToken = :claimToken order by c.id", Long.class)
+                .setParameter("claimToken", claimToken)
+                .getResultList();
+    }
+
+    /**
+     * 처리 중에 워커가 죽어서 남은 명령을 다시 대기 상태로 돌린다
+     */
+    public int releaseStale(LocalDateTime claimedBefore) {
+        return em.createQuery("update OrderCommand c" +
+                        " set c.status = :pending, c.claimToken = null" +
+                        " where c.status = :processing and c.claimedAt < :claimedBefore")
+                .setParameter("pending", OrderCommandStatus.PENDING)
+                .setParameter("processing", OrderCommandStatus.PROCESSING)
+                .setParameter("claimedBefore", claimedBefore)
+                .executeUpdate();
+    }
+}
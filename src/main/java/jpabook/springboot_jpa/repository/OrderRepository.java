@@ -3,22 +3,36 @@ package jpabook.springboot_jpa.repository;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
 import jpabook.springboot_jpa.domain.*;
 import jpabook.springboot_jpa.domain.Order;
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-@RequiredArgsConstructor
 public class OrderRepository {
 
+    /**
+     * LIKE 이스케이프 문자
+     * - 백슬래시는 DB 마다 문자열 리터럴 해석이 달라 '!' 를 사용한다
+     */
+    static final char LIKE_ESCAPE = '!';
+
     private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final OrderSearchQueries orderSearchQueries;
+
+    public OrderRepository(EntityManager em, OrderSearchQueries orderSearchQueries) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em); // 공유 EntityManager 프록시라 빈 하나에 한번만 만들어도 된다
+        this.orderSearchQueries = orderSearchQueries;
+    }
 
     public void save(Order order) {
         em.persist(order);
@@ -28,6 +42,14 @@ public class OrderRepository {
         return em.find(Order.class, id);
     }
 
+    /**
+     * 주문 행을 잠그고 조회 (PESSIMISTIC_WRITE, 취소용)
+     * - 같은 주문을 동시에 취소하면 뒤의 트랜잭션은 앞이 커밋될 때까지 기다렸다가 CANCEL 상태를 읽는다 (재고 중복 복구 방지)
+     */
+    public Order findOneForUpdate(Long id) {
+        return em.find(Order.class, id, LockModeType.PESSIMISTIC_WRITE);
+    }
+
     /**
      * JPQL 로 처리
      */
@@ -55,7 +77,7 @@ public class OrderRepository {
             } else {
                 jpql += " and";
             }
-            jpql += " m.name like :name";
+            jpql += " m.nameSearch like :name escape '" + LIKE_ESCAPE + "'";
         }
 
         TypedQuery<Order> query = em.createQuery(jpql, Order.class).setMaxResults(1000); //최대 1000건
@@ -65,7 +87,7 @@ public class OrderRepository {
         }
 
         if (StringUtils.hasText(orderSearch.getMemberName())) {
-            query = query.setParameter("name", orderSearch.getMemberName());
+            query = query.setParameter("name", namePrefix(orderSearch.getMemberName()));
         }
 
         return query.getResultList();
@@ -92,8 +114,7 @@ public class OrderRepository {
         //회원 이름 검색
         if (StringUtils.hasText(orderSearch.getMemberName())) {
             Predicate name =
-                    cb.like(m.<String>get("name"), "%" + orderSearch.getMemberName()
-                            + "%");
+                    cb.like(m.<String>get("nameSearch"), namePrefix(orderSearch.getMemberName()), LIKE_ESCAPE);
             criteria.add(name);
         }
 
@@ -107,11 +128,10 @@ public class OrderRepository {
      * Querydsl 로 처리
      */
     public List<Order> findAll(OrderSearch orderSearch) {
-        JPAQueryFactory query = new JPAQueryFactory(em);
         QOrder order = QOrder.order;
         QMember member = QMember.member;
 
-        return query
+        return queryFactory
                 .select(order)
                 .from(order)
                 .join(order.member, member)
@@ -121,11 +141,41 @@ public class OrderRepository {
 
     }
 
+    /**
+     * 조건 조합별로 미리 등록한 named query 로 처리
+     * - 위 세 가지 방식과 결과는 같고, 호출마다 쿼리를 새로 만들지 않는다
+     * - 주문일 범위 같은 새 조건은 OrderSearchFilter 에만 추가한다
+     */
+    public List<Order> search(OrderSearch orderSearch) {
+        return orderSearchQueries.create(em, orderSearch)
+                .setMaxResults(1000) //최대 1000건
+                .getResultList();
+    }
+
     private BooleanExpression nameLike(String memberName) {
         if (!StringUtils.hasText(memberName)) {
             return null;
         }
-        return QMember.member.name.like(memberName);
+        return QMember.member.nameSearch.like(namePrefix(memberName), LIKE_ESCAPE);
+    }
+
+    /**
+     * 회원 이름 검색 조건
+     * - 세 구현 모두 정규화된 name_search 컬럼에 대한 전방 일치로 통일한다
+     * - '%이름%' 은 인덱스를 탈 수 없지만 '이름%' 은 idx_member_name_search 로 범위 스캔이 가능하다
+     * - 검색어의 %, _ 는 와일드카드가 아닌 문자 그대로 찾는다
+     */
+    static String namePrefix(String memberName) {
+        String normalized = Member.toSearchName(memberName);
+        StringBuilder sb = new StringBuilder(normalized.length() + 1);
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                sb.append(LIKE_ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.append('%').toString();
     }
 
     private BooleanExpression statusEq(OrderStatus statusCond) {
@@ -135,6 +185,53 @@ public class OrderRepository {
         return QOrder.order.status.eq(statusCond);
     }
 
+    /**
+     * 회원 id 목록으로 주문 조회
+     * - 부분 일치 이름 검색은 MemberNameIndex 가 회원 id 로 바꿔주고, DB 는 idx_orders_member_id 로 IN 조회만 한다
+     */
+    public List<Order> findAllByMemberIds(Collection<Long> memberIds, OrderStatus status) {
+        if (memberIds.isEmpty()) {
+            return List.of();
+        }
+        String jpql = "select o from Order o" +
+                " join fetch o.member m" +
+                " join fetch o.delivery d" +
+                " where m.id in :memberIds";
+        if (status != null) {
+            jpql += " and o.status = :status";
+        }
+
+        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+                .setParameter("memberIds", memberIds)
+                .setMaxResults(1000); //최대 1000건
+
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+
+        return query.getResultList();
+    }
+
+    /**
+     * 주문 id 목록으로 배송, 주문상품까지 한번에 조회 (일괄 취소용, 상품은 id 만 쓰므로 조인하지 않는다)
+     * - 먼저 주문 행만 id 순으로 잠근다 (PESSIMISTIC_WRITE, 겹치는 일괄 취소끼리 같은 순서로 잠가서 교착되지 않는다)
+     * - 잠금을 얻은 뒤 읽으므로, 먼저 끝난 취소가 바꾼 상태(CANCEL)를 보고 건너뛴다
+     * - 조인 패치 쿼리에 바로 잠금을 걸면 배송, 주문상품 행까지 잠그므로 나눠서 조회한다
+     */
+    public List<Order> findAllWithItems(Collection<Long> ids) {
+        em.createQuery("select o from Order o where o.id in :ids order by o.id", Order.class)
+                .setParameter("ids", ids)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+
+        return em.createQuery(
+                        "select o from Order o" +
+                                " join fetch o.delivery d" +
+                                " join fetch o.orderItems oi" +
+                                " where o.id in :ids", Order.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
 
     public List<Order> findAllWithMemberDelivery() {
         return em.createQuery(
@@ -175,14 +272,43 @@ public class OrderRepository {
      * - hibernate.default_batch_fetch_size : 글로벌 성정
      * - @BatchSize : 개별 최적화
      * - 이 옵션을 사용하면 컬렉션이나 프록시 객체를 한꺼번에 설정한 size 만큼 IN 쿼리로 조회한다
+     * - 정렬이 없으면 페이지 경계가 실행 계획에 따라 달라지므로 order by o.id 로 자른다 (V5, V6 페이징과 같은 윈도우)
      */
     public List<Order> findAllWithMemberDelivery(int offset, int limit) {
         return em.createQuery(
                         "select o from Order o" +
                                 " join fetch o.member m" +
-                                " join fetch o.delivery d", Order.class)
+                                " join fetch o.delivery d" +
+                                " order by o.id", Order.class)
                 .setFirstResult(offset)
                 .setMaxResults(limit)
                 .getResultList();
     }
+
+    /**
+     * 키셋(seek) 페이징
+     * - offset 페이징은 앞 페이지의 row 를 모두 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다
+     * - 마지막으로 읽은 (orderDate, orderId) 이후부터 인덱스를 타고 limit 만큼만 읽으므로 페이지 깊이와 상관없이 일정하다
+     * - ToOne 관계는 페치 조인, 컬렉션은 V3.1과 동일하게 default_batch_fetch_size 로 조회한다
+     */
+    public List<Order> findAllWithMemberDelivery(OrderCursor after, int limit) {
+        String jpql = "select o from Order o" +
+                " join fetch o.member m" +
+                " join fetch o.delivery d";
+        if (after != null) {
+            jpql += " where o.orderDate > :orderDate" +
+                    " or (o.orderDate = :orderDate and o.id > :orderId)";
+        }
+        jpql += " order by o.orderDate, o.id";
+
+        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+                .setMaxResults(limit);
+
+        if (after != null) {
+            query.setParameter("orderDate", after.getOrderDate())
+                    .setParameter("orderId", after.getOrderId());
+        }
+
+        return query.getResultList();
+    }
 }
@@ -3,6 +3,9 @@ package jpabook.springboot_jpa.repository;
 import jpabook.springboot_jpa.domain.OrderStatus;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
 
 @Getter
 @Setter
@@ -11,4 +14,12 @@ public class OrderSearch {
     private String memberName; // 회원 이름
     private OrderStatus orderStatus; // 주문 상태 [ORDER, CANCEL]
 
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime orderDateFrom; // 주문일 시작 (포함)
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime orderDateTo; // 주문일 끝 (미포함)
+
+    private Integer minTotalPrice; // 최소 주문 총액
+
 }
@@ -0,0 +1,93 @@
+package jpabook.springboot_jpa.repository;
+
+import jakarta.persistence.TypedQuery;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * OrderSearch 검색 조건 하나 = JPQL 조건절 조각 + 값이 있는지 판단 + 파라미터 바인딩
+ * - 조건 조합은 유한하므로 OrderSearchQueries 가 조합(비트마스크)마다 쿼리를 시작 시 한번만 만든다
+ * - 새 검색 조건은 여기에 상수 하나만 추가하면 된다 (조합 수는 2^n 으로 늘어난다)
+ */
+public enum OrderSearchFilter {
+
+    STATUS("o.status = :status",
+            s -> s.getOrderStatus() != null,
+            (q, s) -> q.setParameter("status", s.getOrderStatus())),
+
+    MEMBER_NAME("m.nameSearch like :name escape '" + OrderRepository.LIKE_ESCAPE + "'",
+            s -> StringUtils.hasText(s.getMemberName()),
+            (q, s) -> q.setParameter("name", OrderRepository.namePrefix(s.getMemberName()))),
+
+    ORDER_DATE_FROM("o.orderDate >= :orderDateFrom",
+            s -> s.getOrderDateFrom() != null,
+            (q, s) -> q.setParameter("orderDateFrom", s.getOrderDateFrom())),
+
+    ORDER_DATE_TO("o.orderDate < :orderDateTo",
+            s -> s.getOrderDateTo() != null,
+            (q, s) -> q.setParameter("orderDateTo", s.getOrderDateTo())),
+
+    MIN_TOTAL_PRICE("o.totalPrice >= :minTotalPrice",
+            s -> s.getMinTotalPrice() != null,
+            (q, s) -> q.setParameter("minTotalPrice", s.getMinTotalPrice()));
+
+    private final String condition;
+    private final Predicate<OrderSearch> present;
+    private final BiConsumer<TypedQuery<?>, OrderSearch> binder;
+
+    OrderSearchFilter(String condition, Predicate<OrderSearch> present, BiConsumer<TypedQuery<?>, OrderSearch> binder) {
+        this.condition = condition;
+        this.present = present;
+        this.binder = binder;
+    }
+
+    private int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * 값이 채워진 조건들의 비트마스크
+     */
+    public static int maskOf(OrderSearch orderSearch) {
+        int mask = 0;
+        for (OrderSearchFilter filter : values()) {
+            if (filter.present.test(orderSearch)) {
+                mask |= filter.bit();
+            }
+        }
+        return mask;
+    }
+
+    public static int combinations() {
+        return 1 << values().length;
+    }
+
+    /**
+     * 비트마스크에 해당하는 JPQL (시작 시 조합마다 한번만 호출된다)
+     */
+    public static String jpql(int mask) {
+        List<String> conditions = new ArrayList<>();
+        for (OrderSearchFilter filter : values()) {
+            if ((mask & filter.bit()) != 0) {
+                conditions.add(filter.condition);
+            }
+        }
+        String jpql = "select o from Order o join o.member m";
+        if (!conditions.isEmpty()) {
+            jpql += " where " + String.join(" and ", conditions);
+        }
+        return jpql;
+    }
+
+    public static void bind(TypedQuery<?> query, int mask, OrderSearch orderSearch) {
+        for (OrderSearchFilter filter : values()) {
+            if ((mask & filter.bit()) != 0) {
+                filter.binder.accept(query, orderSearch);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package jpabook.springboot_jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import jpabook.springboot_jpa.domain.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * OrderSearch 조건 조합별 named query 등록소
+ * - 시작 시 모든 조합의 JPQL 을 한번씩 파싱/검증해서 named query 로 등록한다 (잘못된 조건 조각은 기동 시점에 실패)
+ * - 호출 시에는 비트마스크로 이름을 찾아 파라미터만 바인딩하므로 문자열 조립, Criteria 트리 생성, Querydsl 직렬화가 없다
+ */
+@Component
+public class OrderSearchQueries {
+
+    private static final String NAME_PREFIX = "Order.search.";
+
+    private final String[] names;
+
+    public OrderSearchQueries(EntityManagerFactory emf) {
+        this.names = new String[OrderSearchFilter.combinations()];
+        try (EntityManager em = emf.createEntityManager()) {
+            for (int mask = 0; mask < names.length; mask++) {
+                names[mask] = NAME_PREFIX + mask;
+                emf.addNamedQuery(names[mask], em.createQuery(OrderSearchFilter.jpql(mask), Order.class));
+            }
+        }
+    }
+
+    public TypedQuery<Order> create(EntityManager em, OrderSearch orderSearch) {
+        int mask = OrderSearchFilter.maskOf(orderSearch);
+        TypedQuery<Order> query = em.createNamedQuery(names[mask], Order.class);
+        OrderSearchFilter.bind(query, mask, orderSearch);
+        return query;
+    }
+}
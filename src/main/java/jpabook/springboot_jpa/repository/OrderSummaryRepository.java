@@ -0,0 +1,50 @@
+package jpabook.springboot_jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.springboot_jpa.domain.OrderStatus;
+import jpabook.springboot_jpa.domain.OrderSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderSummaryRepository {
+
+    private final EntityManager em;
+
+    /**
+     * 조인 없이 order_summary 한 테이블만 키셋 페이징으로 조회
+     */
+    public List<OrderSummary> findPage(OrderStatus status, OrderCursor after, int limit) {
+        List<String> conditions = new ArrayList<>();
+        if (status != null) {
+            conditions.add("s.status = :status");
+        }
+        if (after != null) {
+            conditions.add("(s.orderDate > :orderDate or (s.orderDate = :orderDate and s.orderId > :orderId))");
+        }
+
+        String jpql = "select s from OrderSummary s";
+        if (!conditions.isEmpty()) {
+            jpql += " where " + String.join(" and ", conditions);
+        }
+        jpql += " order by s.orderDate, s.orderId";
+
+        TypedQuery<OrderSummary> query = em.createQuery(jpql, OrderSummary.class)
+                .setMaxResults(limit);
+
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (after != null) {
+            query.setParameter("orderDate", after.getOrderDate())
+                    .setParameter("orderId", after.getOrderId());
+        }
+
+        return query.getResultList();
+    }
+}
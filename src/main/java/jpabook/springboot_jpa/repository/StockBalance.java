@@ -0,0 +1,26 @@
+package jpabook.springboot_jpa.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 상품별 재고와 변동 기록 합계 (대사용)
+ * - appliedQuantity : item 에 반영된 변동 합계, stockQuantity 와 같아야 한다
+ * - pendingQuantity : 아직 반영되지 않은 변동 합계 (인기 상품)
+ * - available       : 인기 상품 카운터의 남은 재고, stockQuantity + pendingQuantity 와 같아야 한다 (일반 상품은 null)
+ */
+@Data
+@AllArgsConstructor
+public class StockBalance {
+
+    private Long itemId;
+    private int stockQuantity;
+    private long appliedQuantity;
+    private long pendingQuantity;
+    private Long available;
+
+    public boolean isMatched() {
+        return stockQuantity == appliedQuantity
+                && (available == null || available == stockQuantity + pendingQuantity);
+    }
+}
@@ -0,0 +1,87 @@
+package jpabook.springboot_jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.springboot_jpa.domain.StockMovement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class StockMovementRepository {
+
+    private final EntityManager em;
+
+    public void save(StockMovement movement) {
+        em.persist(movement);
+    }
+
+    /**
+     * 상품별 변동 이력 (stock_movement_id 순 키셋 페이징)
+     */
+    public List<StockMovement> findByItemId(Long itemId, Long afterId, int limit) {
+        String jpql = "select m from StockMovement m where m.itemId = :itemId";
+        if (afterId != null) {
+            jpql += " and m.id > :afterId";
+        }
+        TypedQuery<StockMovement> query = em.createQuery(jpql + " order by m.id", StockMovement.class)
+                .setParameter("itemId", itemId)
+                .setMaxResults(limit);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * 변동 기록이 있는 상품별 재고와 변동 합계 (journal 전체를 한번 읽는다)
+     */
+    public List<StockBalance> findBalances() {
+        List<Object[]> rows = em.createQuery("select m.itemId, i.stockQuantity," +
+                        " sum(case when m.applied = true then m.quantity else 0 end)," +
+                        " sum(case when m.applied = false then m.quantity else 0 end)" +
+                        " from StockMovement m join Item i on i.id = m.itemId" +
+                        " group by m.itemId, i.stockQuantity" +
+                        " order by m.itemId", Object[].class)
+                .getResultList();
+
+        List<StockBalance> balances = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            balances.add(new StockBalance((Long) row[0], (Integer) row[1],
+                    ((Number) row[2]).longValue(), ((Number) row[3]).longValue(), null));
+        }
+        return balances;
+    }
+
+    /**
+     * 변동 기록이 하나도 없는 상품의 id, 현재 재고 (journal 도입 전 상품의 시작 재고를 남기기 위해)
+     */
+    public List<Object[]> findItemsWithoutMovement(int limit) {
+        return em.createQuery("select i.id, i.stockQuantity from Item i" +
+                        " where not exists (select m.id from StockMovement m where m.itemId = i.id)" +
+                        " order by i.id", Object[].class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 아직 item 에 반영되지 않은 변동을 id 순으로 limit 개까지
+     */
+    public List<StockMovement> findUnapplied(int limit) {
+        return em.createQuery("select m from StockMovement m where m.applied = false order by m.id", StockMovement.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 반영 표시 (아직 반영되지 않은 행만 바꾸므로, 다른 쪽이 먼저 반영했으면 반환값이 ids 보다 작다)
+     */
+    public int markApplied(List<Long> ids) {
+        return em.createQuery("update StockMovement m set m.applied = true where m.id in :ids and m.applied = false")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+}
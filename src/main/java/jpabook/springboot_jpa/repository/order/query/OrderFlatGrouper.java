@@ -0,0 +1,45 @@
+package jpabook.springboot_jpa.repository.order.query;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * order_id 순으로 정렬된 플랫 데이터를 주문 단위로 묶는다
+ * - groupingBy 처럼 전체를 Map 에 올리지 않고, order_id 가 바뀌는 시점에 하나씩 내보낸다
+ * - 한번에 메모리에 올라가는 것은 주문 1건 분량뿐이고, 입력 순서가 그대로 유지된다
+ * - 입력은 반드시 order_id 기준으로 정렬되어 있어야 한다
+ * - 주문상품이 없는 주문(left join 으로 orderPrice 가 null 인 row)은 빈 orderItems 로 내보낸다
+ */
+public final class OrderFlatGrouper {
+
+    private OrderFlatGrouper() {
+    }
+
+    public static void forEachOrder(Iterator<OrderFlatDto> flats, Consumer<OrderQueryDto> action) {
+        OrderQueryDto current = null;
+        List<OrderItemQueryDto> items = null;
+
+        while (flats.hasNext()) {
+            OrderFlatDto flat = flats.next();
+
+            if (current == null || !current.getOrderId().equals(flat.getOrderId())) {
+                if (current != null) {
+                    action.accept(current);
+                }
+                items = new ArrayList<>();
+                current = new OrderQueryDto(flat.getOrderId(), flat.getName(), flat.getOrderDate(), flat.getOrderStatus(), flat.getAddress(), items);
+            }
+
+            if (flat.getOrderPrice() != null) {
+                items.add(new OrderItemQueryDto(flat.getOrderId(), flat.getItemName(), flat.getOrderPrice(), flat.getCount()));
+            }
+        }
+
+        if (current != null) {
+            action.accept(current);
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package jpabook.springboot_jpa.repository.order.query;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * orderItem 컬렉션을 order_id IN 절로 나눠서 조회한다 (V5 최적화의 컬렉션 1번 부분)
+ * - 주문 id 를 한번에 전부 IN 절에 넣으면 SQL 이 거대해지고, 드라이버 파라미터 제한에 걸리고, 문장 캐시도 쓸 수 없다
+ * - 고정 크기(chunkSize) 로 나누고, 마지막 조각은 2의 거듭제곱 크기로 채워서(padding) SQL 모양이 몇 가지로만 반복되게 한다
+ * - 조각은 호출한 스레드에서 차례로 조회한다. 호출한 쪽의 트랜잭션(같은 커넥션, 같은 스냅샷, 읽기 전용이면 replica)을
+ *   그대로 쓰므로 한 응답 안에서 루트와 컬렉션이 서로 다른 시점을 보지 않고, 요청 하나가 커넥션을 하나만 잡는다
+ */
+@Component
+public class OrderItemChunkLoader {
+
+    private final EntityManager em;
+    private final int chunkSize;
+
+    public OrderItemChunkLoader(EntityManager em,
+                                @Value("${jpashop.order-item-loader.chunk-size:256}") int chunkSize) {
+        this.em = em;
+        this.chunkSize = chunkSize;
+    }
+
+    public Long2ObjectMap<List<OrderItemQueryDto>> load(List<Long> orderIds) {
+        Long2ObjectMap<List<OrderItemQueryDto>> orderItemMap = new Long2ObjectOpenHashMap<>(orderIds.size());
+        if (orderIds.isEmpty()) {
+            return orderItemMap;
+        }
+
+        for (List<Long> chunk : split(orderIds)) {
+            merge(orderItemMap, findOrderItems(chunk));
+        }
+        return orderItemMap;
+    }
+
+    /**
+     * chunkSize 단위로 나누고, 마지막 조각은 2의 거듭제곱 크기까지 마지막 id 를 반복해서 채운다
+     * (IN 절에 같은 값이 중복되어도 결과는 같다)
+     */
+    List<List<Long>> split(List<Long> orderIds) {
+        List<List<Long>> chunks = new ArrayList<>((orderIds.size() + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < orderIds.size(); from += chunkSize) {
+            List<Long> chunk = new ArrayList<>(orderIds.subList(from, Math.min(from + chunkSize, orderIds.size())));
+            int padded = Math.min(chunkSize, Integer.highestOneBit(chunk.size() - 1) << 1);
+            Long last = chunk.get(chunk.size() - 1);
+            while (chunk.size() < padded) {
+                chunk.add(last);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private List<OrderItemQueryDto> findOrderItems(List<Long> orderIds) {
+        return em.createQuery(
+                        "select new jpabook.springboot_jpa.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
+                                " from OrderItem oi" +
+                                " join oi.item i" +
+                                " where oi.order.id in :orderIds", OrderItemQueryDto.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    private static void merge(Long2ObjectMap<List<OrderItemQueryDto>> orderItemMap, List<OrderItemQueryDto> orderItems) {
+        for (OrderItemQueryDto orderItem : orderItems) {
+            List<OrderItemQueryDto> list = orderItemMap.get(orderItem.getOrderId().longValue());
+            if (list == null) {
+                list = new ArrayList<>();
+                orderItemMap.put(orderItem.getOrderId().longValue(), list);
+            }
+            list.add(orderItem);
+        }
+    }
+
+}
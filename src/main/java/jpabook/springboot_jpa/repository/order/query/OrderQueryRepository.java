@@ -1,19 +1,25 @@
 package jpabook.springboot_jpa.repository.order.query;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import jakarta.persistence.EntityManager;
 import jpabook.springboot_jpa.domain.OrderItem;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderQueryRepository {
 
+    private static final int STREAM_FETCH_SIZE = 1000;
+
     private final EntityManager em;
+    private final OrderItemChunkLoader orderItemChunkLoader;
 
     /**
      * 컬렉션은 별도로 조회
@@ -43,26 +49,37 @@ public class OrderQueryRepository {
         List<OrderQueryDto> result = findOrders();
 
         // orderItem 컬렉션을 MAP 한방에 조회
-        Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
+        Long2ObjectMap<List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
 
         // 루프를 돌면서 컬렉션 추가(추가 쿼리 실행 X)
-        result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
+        result.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId().longValue(), new ArrayList<>())));
 
         return result;
     }
 
-    private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
-        List<OrderItemQueryDto> orderItems = em.createQuery(
-                        "select new jpabook.springboot_jpa.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
-                                " from OrderItem oi" +
-                                " join oi.item i" +
-                                " where oi.order.id in :orderIds", OrderItemQueryDto.class)
-                .setParameter("orderIds", orderIds)
-                .getResultList();
+    /**
+     * 최적화 + 페이징
+     * Query : 루트 1번(페이징), 컬렉션 1번
+     * 루트는 ToOne 관계만 조인하므로 row 수가 늘지 않아 페이징이 가능하다
+     */
+    public List<OrderQueryDto> findAllByDto_optimization(int offset, int limit) {
+        List<OrderQueryDto> result = findOrders(offset, limit);
+        if (result.isEmpty()) {
+            return result;
+        }
+
+        Long2ObjectMap<List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
+
+        result.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId().longValue(), new ArrayList<>())));
 
-        Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItems.stream()
-                .collect(Collectors.groupingBy(orderItemQueryDto -> orderItemQueryDto.getOrderId()));
-        return orderItemMap;
+        return result;
+    }
+
+    /**
+     * 주문 id 를 고정 크기 조각으로 나눠서 IN 쿼리로 조회한다 (OrderItemChunkLoader 참고)
+     */
+    private Long2ObjectMap<List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
+        return orderItemChunkLoader.load(orderIds);
     }
 
     private static List<Long> toOrderIds(List<OrderQueryDto> result) {
@@ -85,6 +102,18 @@ public class OrderQueryRepository {
         ).getResultList();
     }
 
+    private List<OrderQueryDto> findOrders(int offset, int limit) {
+        return em.createQuery(
+                "select new jpabook.springboot_jpa.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " order by o.id", OrderQueryDto.class
+        ).setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
     /**
      * 1 : N 관계인 orderItems 조회
      */
@@ -108,4 +137,64 @@ public class OrderQueryRepository {
                         " join oi.item i", OrderFlatDto.class
         ).getResultList();
     }
+
+    /**
+     * V6 플랫 조회 + 페이징
+     * - 컬렉션을 조인하면 row 수가 늘어나 페이징이 불가능하므로, 먼저 루트(order)의 id 만 페이징해서 조회한다
+     *   V3.1, V5 와 같은 윈도우가 되도록 member, delivery 를 조인하고 order by o.id 로 자른다
+     * - 그 id 들만 플랫 조인해서 가져오므로 한 페이지 분량의 row 만 메모리에 올라간다
+     * - 주문상품은 left join 이라 주문상품이 없는 주문도 빈 orderItems 로 포함된다
+     * - groupingBy(해시) 대신 order_id 가 바뀌는 지점에서 끊어서 묶으므로 정렬 순서가 유지된다
+     * Query : id 윈도우 1번, 플랫 조인 1번
+     */
+    public List<OrderQueryDto> findAllByDto_flat(int offset, int limit) {
+        List<Long> orderIds = em.createQuery(
+                "select o.id from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " order by o.id", Long.class
+        ).setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+
+        if (orderIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<OrderFlatDto> flats = em.createQuery(
+                "select new jpabook.springboot_jpa.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " left join o.orderItems oi" +
+                        " left join oi.item i" +
+                        " where o.id in :orderIds" +
+                        " order by o.id, oi.id", OrderFlatDto.class
+        ).setParameter("orderIds", orderIds)
+                .getResultList();
+
+        List<OrderQueryDto> result = new ArrayList<>(orderIds.size());
+        OrderFlatGrouper.forEachOrder(flats.iterator(), result::add);
+        return result;
+    }
+
+    /**
+     * V6 플랫 조회를 스트림(forward-only 커서)으로 읽는다
+     * - 결과를 List 로 모으지 않으므로 주문 수와 상관없이 메모리 사용량이 일정하다
+     * - OrderFlatGrouper 로 주문 단위로 묶을 수 있도록 order_id 순으로 정렬한다
+     * - 주문상품은 left join 이라 주문상품이 없는 주문도 빠지지 않는다
+     * - 반드시 트랜잭션 안에서 사용하고, 다 읽은 뒤 스트림을 닫아야 한다
+     */
+    public Stream<OrderFlatDto> streamAllByDto_flat() {
+        return em.createQuery(
+                "select new jpabook.springboot_jpa.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " left join o.orderItems oi" +
+                        " left join oi.item i" +
+                        " order by o.id, oi.id", OrderFlatDto.class
+        ).setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .getResultStream();
+    }
 }
@@ -0,0 +1,37 @@
+package jpabook.springboot_jpa.repository.report;
+
+/**
+ * 매출 리포트 집계 기준
+ * - 기준마다 롤업(sales_daily) 쿼리와 원본(order_item) 쿼리를 한번만 만들어 둔다
+ * - 결과 열 순서는 (key, label, 매출, 수량) 으로 같다
+ */
+public enum SalesGroupBy {
+
+    ITEM("s.itemId", "i.name", " join Item i on i.id = s.itemId",
+            "i.id", "i.name"),
+
+    TYPE("s.itemType", "s.itemType", "",
+            "i.dtype", "i.dtype"),
+
+    DAY("s.salesDate", "s.salesDate", "",
+            "cast(o.orderDate as LocalDate)", "cast(o.orderDate as LocalDate)");
+
+    final String rollupJpql;
+    final String liveJpql;
+
+    SalesGroupBy(String rollupKey, String rollupLabel, String rollupJoin, String liveKey, String liveLabel) {
+        this.rollupJpql = "select " + rollupKey + ", " + rollupLabel + ", sum(s.revenue), sum(s.units)" +
+                " from SalesDaily s" + rollupJoin +
+                " where s.salesDate between :from and :to" +
+                " group by " + rollupKey + ", " + rollupLabel +
+                " order by " + rollupKey;
+        this.liveJpql = "select " + liveKey + ", " + liveLabel + ", sum(oi.orderPrice * oi.count), sum(oi.count)" +
+                " from OrderItem oi" +
+                " join oi.order o" +
+                " join oi.item i" +
+                " where o.status = :status" +
+                " and o.orderDate >= :start and o.orderDate < :end" +
+                " group by " + liveKey + ", " + liveLabel +
+                " order by " + liveKey;
+    }
+}
@@ -0,0 +1,50 @@
+package jpabook.springboot_jpa.repository.report;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 매출 리포트 조회
+ * - 집계는 모두 DB 의 GROUP BY 로 처리하고 애플리케이션에는 결과 행만 가져온다
+ * - 기간은 [from, to] 날짜 기준 (to 포함), 취소된 주문은 제외한다
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesReportRepository {
+
+    private final EntityManager em;
+
+    /**
+     * sales_daily 롤업 테이블에서 집계 (기간 일수 * 상품 수 만큼의 행만 읽는다)
+     */
+    public List<SalesRowDto> findFromRollup(SalesGroupBy groupBy, LocalDate from, LocalDate to) {
+        return toRows(em.createQuery(groupBy.rollupJpql, Object[].class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList());
+    }
+
+    /**
+     * order_item 원본에서 바로 집계 (롤업에 아직 반영되지 않은 최신 주문까지 포함)
+     */
+    public List<SalesRowDto> findLive(SalesGroupBy groupBy, LocalDate from, LocalDate to) {
+        return toRows(em.createQuery(groupBy.liveJpql, Object[].class)
+                .setParameter("status", OrderStatus.ORDER)
+                .setParameter("start", from.atStartOfDay())
+                .setParameter("end", to.plusDays(1).atStartOfDay())
+                .getResultList());
+    }
+
+    private static List<SalesRowDto> toRows(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> new SalesRowDto(String.valueOf(row[0]), String.valueOf(row[1]),
+                        ((Number) row[2]).longValue(), ((Number) row[3]).longValue()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,18 @@
+package jpabook.springboot_jpa.repository.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 매출 리포트 한 줄
+ * - key : 상품 id, 상품 종류, 날짜(yyyy-MM-dd) 중 하나
+ * - label : 화면 표시용 이름 (상품명, 종류명, 날짜)
+ */
+@Data
+@AllArgsConstructor
+public class SalesRowDto {
+    private String key;
+    private String label;
+    private long revenue;
+    private long units;
+}
@@ -0,0 +1,14 @@
+package jpabook.springboot_jpa.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 카테고리 추가/변경 이벤트 (커밋 후 CategoryTreeHolder 가 스냅샷을 다시 만든다)
+ */
+@Getter
+@RequiredArgsConstructor
+public class CategoryChangedEvent {
+
+    private final Long categoryId;
+}
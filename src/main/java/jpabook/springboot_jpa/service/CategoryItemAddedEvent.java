@@ -0,0 +1,16 @@
+package jpabook.springboot_jpa.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 카테고리에 상품 추가 이벤트 (커밋 후 ItemAttributeIndex 가 반영한다)
+ * - category_item 연관관계 테이블만 바뀌어 상품 엔티티 이벤트가 없으므로 따로 알린다
+ */
+@Getter
+@RequiredArgsConstructor
+public class CategoryItemAddedEvent {
+
+    private final Long categoryId;
+    private final Long itemId;
+}
@@ -0,0 +1,70 @@
+package jpabook.springboot_jpa.service;
+
+import jpabook.springboot_jpa.domain.Category;
+import jpabook.springboot_jpa.domain.item.Item;
+import jpabook.springboot_jpa.repository.CategoryRepository;
+import jpabook.springboot_jpa.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CategoryService {
+
+    private final CategoryRepository categoryRepository;
+    private final ItemRepository itemRepository;
+    private final CategoryTreeHolder categoryTreeHolder;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 카테고리 추가
+     * @param parentId 상위 카테고리, null 이면 최상위
+     */
+    @Transactional
+    public Long create(Long parentId, String name) {
+        Category category = new Category();
+        category.setName(name);
+        if (parentId != null) {
+            Category parent = categoryRepository.findOne(parentId);
+            if (parent == null) {
+                throw new IllegalArgumentException("상위 카테고리가 없습니다. id=" + parentId);
+            }
+            parent.addChildCategory(category);
+        }
+        categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(category.getId()));
+        return category.getId();
+    }
+
+    @Transactional
+    public void addItem(Long categoryId, Long itemId) {
+        Category category = categoryRepository.findOne(categoryId);
+        Item item = itemRepository.findOne(itemId);
+        category.getItems().add(item);
+        item.getCategories().add(category);
+        eventPublisher.publishEvent(new CategoryItemAddedEvent(categoryId, itemId));
+    }
+
+    /**
+     * 전체 트리 (메모리 스냅샷, DB 조회 없음)
+     * - 커넥션을 잡지 않도록 트랜잭션을 새로 시작하지 않는다
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CategoryTree findTree() {
+        return categoryTreeHolder.get();
+    }
+
+    public List<Category> findDescendants(Long categoryId) {
+        return categoryRepository.findDescendants(categoryId);
+    }
+
+    public List<Item> findItemsInSubtree(Long categoryId) {
+        return categoryRepository.findItemsInSubtree(categoryId);
+    }
+}
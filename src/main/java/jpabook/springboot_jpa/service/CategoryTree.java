@@ -0,0 +1,85 @@
+package jpabook.springboot_jpa.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 카테고리 트리 스냅샷 (불변)
+ * - 만든 뒤에는 바뀌지 않으므로 여러 스레드가 락 없이 그대로 읽는다
+ * - 카테고리가 바뀌면 고치지 않고 새로 만들어 통째로 바꾼다 (CategoryTreeHolder)
+ */
+@Getter
+public class CategoryTree {
+
+    public static final CategoryTree EMPTY = new CategoryTree(List.of());
+
+    private final List<Node> roots;
+
+    @JsonIgnore
+    private final Map<Long, Node> nodes;
+
+    private CategoryTree(List<Node> roots) {
+        this.roots = roots;
+        Map<Long, Node> index = new HashMap<>();
+        roots.forEach(root -> root.collect(index));
+        this.nodes = Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * @param rows (id, name, parentId) 목록, 상위가 없으면 parentId 는 null
+     */
+    public static CategoryTree of(List<Object[]> rows) {
+        Map<Long, List<Object[]>> childrenByParent = new HashMap<>();
+        for (Object[] row : rows) {
+            childrenByParent.computeIfAbsent((Long) row[2], k -> new ArrayList<>()).add(row);
+        }
+        return new CategoryTree(build(childrenByParent, null, 0));
+    }
+
+    private static List<Node> build(Map<Long, List<Object[]>> childrenByParent, Long parentId, int depth) {
+        List<Object[]> rows = childrenByParent.getOrDefault(parentId, List.of());
+        List<Node> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            result.add(new Node(id, (String) row[1], parentId, depth, build(childrenByParent, id, depth + 1)));
+        }
+        return List.copyOf(result);
+    }
+
+    public Node find(Long categoryId) {
+        return nodes.get(categoryId);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    @Getter
+    public static class Node {
+
+        private final Long id;
+        private final String name;
+        private final Long parentId;
+        private final int depth;
+        private final List<Node> children;
+
+        Node(Long id, String name, Long parentId, int depth, List<Node> children) {
+            this.id = id;
+            this.name = name;
+            this.parentId = parentId;
+            this.depth = depth;
+            this.children = children;
+        }
+
+        private void collect(Map<Long, Node> index) {
+            index.put(id, this);
+            children.forEach(child -> child.collect(index));
+        }
+    }
+}
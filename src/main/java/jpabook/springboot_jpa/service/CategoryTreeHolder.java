@@ -0,0 +1,61 @@
+package jpabook.springboot_jpa.service;
+
+import jpabook.springboot_jpa.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 카테고리 트리 스냅샷 보관
+ * - 읽기는 AtomicReference 에서 현재 스냅샷을 꺼내기만 하므로 락이 없다
+ * - 시작 시, 그리고 카테고리 변경이 커밋될 때마다 전체를 쿼리 한번으로 다시 읽어 새 스냅샷으로 바꾼다
+ * - 다시 만드는 작업끼리는 락으로 순서를 맞춘다 (늦게 시작한 쪽이 최신 데이터를 읽고 마지막에 교체)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryTreeHolder {
+
+    private final CategoryRepository categoryRepository;
+
+    private final AtomicReference<CategoryTree> tree = new AtomicReference<>(CategoryTree.EMPTY);
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    public CategoryTree get() {
+        return tree.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        load();
+    }
+
+    /**
+     * 커밋 직후 다시 읽으므로 레플리카(복제 지연)가 아닌 프라이머리에서 읽도록 readOnly 를 주지 않는다
+     */
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        load();
+    }
+
+    private void load() {
+        rebuildLock.lock();
+        try {
+            CategoryTree snapshot = CategoryTree.of(categoryRepository.findAllNodes());
+            tree.set(snapshot);
+            log.debug("category tree rebuilt: categories={}", snapshot.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package jpabook.springboot_jpa.service;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.springboot_jpa.domain.item.Item;
+import jpabook.springboot_jpa.domain.item.ItemType;
+import jpabook.springboot_jpa.repository.ItemAttributes;
+import jpabook.springboot_jpa.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 상품 속성별 압축 비트맵(Roaring) 인덱스
+ * - 속성 값마다 해당 상품 id 집합을 비트맵으로 두고, 조건 여러 개는 비트맵 AND 로 교집합한다 (DB 조인 없음)
+ * - 교집합 결과에서 필요한 페이지의 id 만 뽑아 DB 에서는 그 id 들만 IN 으로 읽는다
+ * - 카테고리는 직접 속한 상품만 저장하고, 하위 트리 조건은 카테고리 트리 스냅샷으로 하위 카테고리 비트맵을 OR 해서 만든다
+ * <p>
+ * 동기화
+ * - 시작 시 item, category_item 을 한번씩 읽어 전체를 만든다
+ * - 이후에는 Hibernate 커밋 후 이벤트(POST_COMMIT_INSERT/UPDATE/DELETE)로 상품 저장, 수정, 재고 변경을 반영한다
+ *   (saveItem, updateItem 뿐 아니라 주문/취소의 재고 변경도 같은 경로로 들어온다)
+ * - 카테고리에 상품 추가는 연관관계 테이블만 바뀌므로 CategoryItemAddedEvent 를 커밋 후에 받는다
+ * - JPQL/네이티브 벌크 update 는 엔티티 이벤트가 없으므로 반영되지 않는다 (필요하면 rebuild)
+ */
+@Slf4j
+@Component
+public class ItemAttributeIndex implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    enum Attribute {
+        TYPE, IN_STOCK, AUTHOR, ARTIST, DIRECTOR
+    }
+
+    private static final Roaring64NavigableMap EMPTY = new Roaring64NavigableMap();
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ItemRepository itemRepository;
+    private final CategoryTreeHolder categoryTreeHolder;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Roaring64NavigableMap all = new Roaring64NavigableMap();
+    private final Map<Attribute, Map<String, Roaring64NavigableMap>> bitmaps = new EnumMap<>(Attribute.class);
+    private final Long2ObjectMap<String[]> values = new Long2ObjectOpenHashMap<>(); // 상품 id -> 속성 값 (바뀔 때 이전 값 제거용)
+    private final Long2ObjectMap<Roaring64NavigableMap> categories = new Long2ObjectOpenHashMap<>(); // 카테고리 id -> 직접 속한 상품
+
+    public ItemAttributeIndex(EntityManagerFactory entityManagerFactory, ItemRepository itemRepository,
+                              CategoryTreeHolder categoryTreeHolder) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.itemRepository = itemRepository;
+        this.categoryTreeHolder = categoryTreeHolder;
+        for (Attribute attribute : Attribute.values()) {
+            bitmaps.put(attribute, new HashMap<>());
+        }
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * 시작 시 전체 인덱스 생성
+     * - 생성하는 동안 쓰기 락을 잡고 있으므로, 그 사이 커밋된 변경은 생성이 끝난 뒤 반영된다
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            all.clear();
+            bitmaps.values().forEach(Map::clear);
+            values.clear();
+            categories.clear();
+
+            itemRepository.forEachIndexRow(this::add);
+            itemRepository.forEachCategoryItem(this::addCategory);
+
+            all.runOptimize();
+            bitmaps.values().forEach(m -> m.values().forEach(Roaring64NavigableMap::runOptimize));
+            categories.values().forEach(Roaring64NavigableMap::runOptimize);
+            log.info("item attribute index built: items={}, categories={}, {}ms",
+                    all.getLongCardinality(), categories.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onCategoryItemAdded(CategoryItemAddedEvent event) {
+        addCategory(event.getCategoryId(), event.getItemId());
+    }
+
+    // === Hibernate 커밋 후 이벤트 === //
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return Item.class.isAssignableFrom(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Item item) {
+            put(ItemAttributes.of(item));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Item item) {
+            put(ItemAttributes.of(item));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Item item) {
+            remove(item.getId());
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // 롤백된 변경은 반영하지 않는다
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    // === 갱신 === //
+
+    public void put(ItemAttributes attributes) {
+        lock.writeLock().lock();
+        try {
+            removeValues(attributes.getItemId());
+            add(attributes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long itemId) {
+        lock.writeLock().lock();
+        try {
+            removeValues(itemId);
+            all.removeLong(itemId);
+            categories.values().forEach(bitmap -> bitmap.removeLong(itemId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addCategory(long categoryId, long itemId) {
+        lock.writeLock().lock();
+        try {
+            categories.computeIfAbsent(categoryId, k -> new Roaring64NavigableMap()).addLong(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // === 조회 === //
+
+    /**
+     * 조건에 맞는 상품 id 집합 (호출한 쪽이 자유롭게 써도 되는 복사본)
+     * - 작은 비트맵부터 AND 해서 중간 결과를 빨리 줄인다
+     */
+    public Roaring64NavigableMap filter(ItemFilter filter) {
+        lock.readLock().lock();
+        try {
+            return intersect(conditions(filter, null, true));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 상품 종류별 개수 (종류 조건은 빼고 센다)
+     */
+    public Map<ItemType, Long> countByType(ItemFilter filter) {
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap base = intersect(conditions(filter, Attribute.TYPE, true));
+            Map<ItemType, Long> counts = new EnumMap<>(ItemType.class);
+            for (ItemType type : ItemType.values()) {
+                counts.put(type, andCardinality(base, bitmap(Attribute.TYPE, type.name())));
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 카테고리별 하위 트리 상품 개수 (카테고리 조건은 빼고 센다)
+     */
+    public Map<Long, Long> countByCategory(ItemFilter filter, List<CategoryTree.Node> nodes) {
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap base = intersect(conditions(filter, null, false));
+            Map<Long, Long> counts = new HashMap<>();
+            for (CategoryTree.Node node : nodes) {
+                counts.put(node.getId(), andCardinality(base, subtree(node)));
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return all.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * id 순으로 after 다음부터 limit 개 (rank/select 로 바로 찾아가므로 앞부분을 훑지 않는다)
+     */
+    public static LongList page(Roaring64NavigableMap ids, Long after, int limit) {
+        long from = after == null ? 0 : ids.rankLong(after); // after 이하 개수 = 다음 원소의 순번
+        long to = Math.min(ids.getLongCardinality(), from + limit);
+        LongArrayList result = new LongArrayList((int) Math.max(0, to - from));
+        for (long i = from; i < to; i++) {
+            result.add(ids.select(i));
+        }
+        return result;
+    }
+
+    // 읽기 락을 잡은 상태에서 호출한다. skip, withCategory 로 개수를 셀 조건 자신은 뺀다
+    private List<Roaring64NavigableMap> conditions(ItemFilter filter, Attribute skip, boolean withCategory) {
+        List<Roaring64NavigableMap> result = new ArrayList<>();
+        if (filter.getType() != null && skip != Attribute.TYPE) {
+            result.add(bitmap(Attribute.TYPE, filter.getType().name()));
+        }
+        if (filter.getInStock() != null) {
+            result.add(bitmap(Attribute.IN_STOCK, filter.getInStock().toString()));
+        }
+        addIfPresent(result, Attribute.AUTHOR, filter.getAuthor());
+        addIfPresent(result, Attribute.ARTIST, filter.getArtist());
+        addIfPresent(result, Attribute.DIRECTOR, filter.getDirector());
+        if (withCategory && filter.getCategoryId() != null) {
+            CategoryTree.Node node = categoryTreeHolder.get().find(filter.getCategoryId());
+            result.add(node == null ? EMPTY : subtree(node));
+        }
+        return result;
+    }
+
+    private void addIfPresent(List<Roaring64NavigableMap> result, Attribute attribute, String value) {
+        String key = normalize(value);
+        if (key != null) {
+            result.add(bitmap(attribute, key));
+        }
+    }
+
+    private Roaring64NavigableMap intersect(List<Roaring64NavigableMap> conditions) {
+        if (conditions.isEmpty()) {
+            return copy(all);
+        }
+        conditions.sort(Comparator.comparingLong(Roaring64NavigableMap::getLongCardinality));
+        Roaring64NavigableMap result = copy(conditions.get(0));
+        for (int i = 1; i < conditions.size() && !result.isEmpty(); i++) {
+            result.and(conditions.get(i));
+        }
+        return result;
+    }
+
+    private Roaring64NavigableMap subtree(CategoryTree.Node node) {
+        Roaring64NavigableMap result = new Roaring64NavigableMap();
+        forEachNode(node, n -> {
+            Roaring64NavigableMap items = categories.get((long) n.getId());
+            if (items != null) {
+                result.or(items);
+            }
+        });
+        return result;
+    }
+
+    private static void forEachNode(CategoryTree.Node node, Consumer<CategoryTree.Node> action) {
+        action.accept(node);
+        node.getChildren().forEach(child -> forEachNode(child, action));
+    }
+
+    private Roaring64NavigableMap bitmap(Attribute attribute, String value) {
+        return bitmaps.get(attribute).getOrDefault(value, EMPTY);
+    }
+
+    private static long andCardinality(Roaring64NavigableMap base, Roaring64NavigableMap other) {
+        Roaring64NavigableMap result = copy(base);
+        result.and(other);
+        return result.getLongCardinality();
+    }
+
+    private static Roaring64NavigableMap copy(Roaring64NavigableMap source) {
+        Roaring64NavigableMap copy = new Roaring64NavigableMap();
+        copy.or(source);
+        return copy;
+    }
+
+    // 쓰기 락을 잡은 상태에서 호출한다
+    private void add(ItemAttributes attributes) {
+        long itemId = attributes.getItemId();
+        String[] row = new String[Attribute.values().length];
+        row[Attribute.TYPE.ordinal()] = attributes.getType().name();
+        row[Attribute.IN_STOCK.ordinal()] = Boolean.toString(attributes.isInStock());
+        row[Attribute.AUTHOR.ordinal()] = normalize(attributes.getAuthor());
+        row[Attribute.ARTIST.ordinal()] = normalize(attributes.getArtist());
+        row[Attribute.DIRECTOR.ordinal()] = normalize(attributes.getDirector());
+
+        all.addLong(itemId);
+        values.put(itemId, row);
+        for (Attribute attribute : Attribute.values()) {
+            String value = row[attribute.ordinal()];
+            if (value != null) {
+                bitmaps.get(attribute).computeIfAbsent(value, k -> new Roaring64NavigableMap()).addLong(itemId);
+            }
+        }
+    }
+
+    // 쓰기 락을 잡은 상태에서 호출한다
+    private void removeValues(long itemId) {
+        String[] old = values.remove(itemId);
+        if (old == null) {
+            return;
+        }
+        for (Attribute attribute : Attribute.values()) {
+            String value = old[attribute.ordinal()];
+            if (value == null) {
+                continue;
+            }
+            Map<String, Roaring64NavigableMap> byValue = bitmaps.get(attribute);
+            Roaring64NavigableMap ids = byValue.get(value);
+            if (ids != null) {
+                ids.removeLong(itemId);
+                if (ids.isEmpty()) {
+                    byValue.remove(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * 저자, 가수, 감독은 앞뒤 공백과 대소문자 구분 없이 같은 값으로 본다
+     */
+    static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
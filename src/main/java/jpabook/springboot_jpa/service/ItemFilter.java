@@ -0,0 +1,21 @@
+package jpabook.springboot_jpa.service;
+
+import jpabook.springboot_jpa.domain.item.ItemType;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 비트맵 인덱스 검색 조건 (모든 조건은 AND, 비어 있으면 조건 없음)
+ */
+@Getter
+@Setter
+public class ItemFilter {
+
+    private Long categoryId; // 이 카테고리와 모든 하위 카테고리
+    private ItemType type;
+    private Boolean inStock;
+    private String author;
+    private String artist;
+    private String director;
+
+}
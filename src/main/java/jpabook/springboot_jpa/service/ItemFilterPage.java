@@ -0,0 +1,18 @@
+package jpabook.springboot_jpa.service;
+
+import jpabook.springboot_jpa.domain.item.Item;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 비트맵 인덱스 검색 결과 (이번 페이지 상품 + 조건에 맞는 전체 개수)
+ */
+@Getter
+@RequiredArgsConstructor
+public class ItemFilterPage {
+
+    private final List<Item> items;
+    private final long total;
+}
@@ -1,13 +1,22 @@
 package jpabook.springboot_jpa.service;
 
+import it.unimi.dsi.fastutil.longs.LongList;
 import jpabook.springboot_jpa.domain.item.Book;
 import jpabook.springboot_jpa.domain.item.Item;
+import jpabook.springboot_jpa.domain.item.ItemType;
+import jpabook.springboot_jpa.repository.FacetCount;
 import jpabook.springboot_jpa.repository.ItemRepository;
+import jpabook.springboot_jpa.repository.ItemSearch;
 import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -15,10 +24,17 @@ import java.util.List;
 public class ItemService {
 
     private final ItemRepository itemRepository;
+    private final CategoryTreeHolder categoryTreeHolder;
+    private final ItemAttributeIndex itemAttributeIndex;
+    private final StockService stockService;
 
     @Transactional
     public void saveItem(Item item) {
+        boolean created = item.getId() == null;
         itemRepository.save(item);
+        if (created) {
+            stockService.recordOpening(item);
+        }
     }
 
     // 준영속 상태에서 수정하는 방법 - 변경 감지 기능 사용
@@ -28,7 +44,7 @@ public class ItemService {
         // 값 세팅
         findItem.setPrice(price);
         findItem.setName(name);
-        findItem.setStockQuantity(stockQuantity);
+        stockService.adjust(findItem, stockQuantity); // 재고는 변동 기록과 함께 바꾼다
     }
 
     public List<Item> findItems() {
@@ -39,4 +55,79 @@ public class ItemService {
         return itemRepository.findOne(itemId);
     }
 
+    /**
+     * 상품 목록 (item_id 순 키셋 페이징)
+     */
+    public List<Item> search(ItemSearch itemSearch, Long afterId, int limit) {
+        if (itemSearch.getMinPrice() != null && itemSearch.getMaxPrice() != null
+                && itemSearch.getMinPrice() > itemSearch.getMaxPrice()) {
+            throw new IllegalArgumentException("최소 가격이 최대 가격보다 큽니다. minPrice="
+                    + itemSearch.getMinPrice() + ", maxPrice=" + itemSearch.getMaxPrice());
+        }
+        return itemRepository.search(itemSearch, afterId, limit);
+    }
+
+    /**
+     * 상품 종류별 개수, 없는 종류도 0 으로 채운다
+     */
+    public List<FacetCount> countByType(ItemSearch itemSearch) {
+        return typeFacets(itemRepository.countByType(itemSearch));
+    }
+
+    /**
+     * 카테고리별 개수
+     * - 카테고리를 골랐으면 그 바로 아래 카테고리들, 안 골랐으면 최상위 카테고리들을 센다 (트리는 메모리 스냅샷에서 읽는다)
+     */
+    public List<FacetCount> countByCategory(ItemSearch itemSearch) {
+        List<CategoryTree.Node> facets = facetCategories(itemSearch.getCategoryId());
+        Map<Long, Long> counts = itemRepository.countByCategory(itemSearch,
+                facets.stream().map(CategoryTree.Node::getId).collect(Collectors.toList()));
+        return categoryFacets(facets, counts);
+    }
+
+    /**
+     * 비트맵 인덱스로 거른 상품 목록
+     * - 조건 교집합은 메모리에서 끝내고, DB 에서는 이번 페이지의 id 만 IN 으로 읽는다
+     */
+    public ItemFilterPage filter(ItemFilter filter, Long afterId, int limit) {
+        Roaring64NavigableMap ids = itemAttributeIndex.filter(filter);
+        LongList page = ItemAttributeIndex.page(ids, afterId, limit);
+
+        List<Item> items = page.isEmpty() ? new ArrayList<>() : itemRepository.findAllById(page);
+        items.sort(Comparator.comparing(Item::getId));
+        return new ItemFilterPage(items, ids.getLongCardinality());
+    }
+
+    public List<FacetCount> countFilteredByType(ItemFilter filter) {
+        return typeFacets(itemAttributeIndex.countByType(filter));
+    }
+
+    public List<FacetCount> countFilteredByCategory(ItemFilter filter) {
+        List<CategoryTree.Node> facets = facetCategories(filter.getCategoryId());
+        return categoryFacets(facets, itemAttributeIndex.countByCategory(filter, facets));
+    }
+
+    private List<CategoryTree.Node> facetCategories(Long categoryId) {
+        CategoryTree tree = categoryTreeHolder.get();
+        if (categoryId == null) {
+            return tree.getRoots();
+        }
+        CategoryTree.Node selected = tree.find(categoryId);
+        return selected == null ? List.of() : selected.getChildren();
+    }
+
+    private static List<FacetCount> typeFacets(Map<ItemType, Long> counts) {
+        List<FacetCount> result = new ArrayList<>();
+        for (ItemType type : ItemType.values()) {
+            result.add(new FacetCount(type.name(), type.getLabel(), counts.getOrDefault(type, 0L)));
+        }
+        return result;
+    }
+
+    private static List<FacetCount> categoryFacets(List<CategoryTree.Node> facets, Map<Long, Long> counts) {
+        return facets.stream()
+                .map(node -> new FacetCount(String.valueOf(node.getId()), node.getName(), counts.getOrDefault(node.getId(), 0L)))
+                .collect(Collectors.toList());
+    }
+
 }
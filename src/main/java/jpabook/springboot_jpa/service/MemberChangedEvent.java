@@ -0,0 +1,20 @@
+package jpabook.springboot_jpa.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * 회원 가입, 이름 변경 이벤트
+ * - 트랜잭션이 커밋된 뒤에만 리스너가 받도록 @TransactionalEventListener 로 구독한다
+ */
+@Getter
+@RequiredArgsConstructor
+public class MemberChangedEvent {
+
+    private final Long memberId;
+    private final String name;
+    private final Instant occurredAt = Instant.now();
+
+}
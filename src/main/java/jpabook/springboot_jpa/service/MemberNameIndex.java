@@ -0,0 +1,232 @@
+package jpabook.springboot_jpa.service;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongLists;
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Member;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 회원 이름 부분 일치(%이름%) 검색용 메모리 trigram 인덱스
+ * - DB 인덱스는 '%이름%' 을 처리할 수 없으므로, 이름을 3글자 조각(trigram)으로 잘라 조각 -> 회원 id 목록을 메모리에 둔다
+ * - 검색어의 모든 trigram 목록을 교집합한 뒤 실제 이름에 검색어가 포함되는지 다시 확인한다 (조각 순서는 보장되지 않으므로)
+ * - 3글자 미만 검색어는 조각을 만들 수 없어 정규화된 이름 전체를 id 순으로 훑는다 (정렬된 memberIds 사용)
+ * - id 목록은 정렬된 primitive long 배열(LongArrayList) 이라 박싱 없이 작게 유지되고 교집합도 병합으로 처리한다
+ * - 애플리케이션 시작 시 전체를 만들고, 이후에는 MemberChangedEvent 를 커밋 후에 받아 갱신한다
+ */
+@Slf4j
+@Component
+public class MemberNameIndex {
+
+    private static final int GRAM = 3;
+    private static final int BUILD_FETCH_SIZE = 1000;
+
+    private final EntityManager em;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Long2ObjectMap<LongArrayList> postings = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<String> names = new Long2ObjectOpenHashMap<>(); // 회원 id -> 정규화된 이름
+    private final LongArrayList memberIds = new LongArrayList(); // names 의 key 를 id 순으로 (해시 맵은 순서가 없다)
+
+    public MemberNameIndex(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * 시작 시 전체 인덱스 생성
+     * - 생성하는 동안 쓰기 락을 잡고 있으므로, 그 사이 커밋된 회원 변경은 생성이 끝난 뒤 순서대로 반영된다
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            names.clear();
+            memberIds.clear();
+            try (Stream<Object[]> rows = em.createQuery("select m.id, m.name from Member m order by m.id", Object[].class)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, BUILD_FETCH_SIZE)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultStream()) {
+                rows.forEach(row -> add((Long) row[0], Member.toSearchName((String) row[1])));
+            }
+            postings.values().forEach(LongArrayList::trim);
+            memberIds.trim();
+            log.info("member name index built: members={}, grams={}, {}ms",
+                    names.size(), postings.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        put(event.getMemberId(), event.getName());
+    }
+
+    public void put(long memberId, String name) {
+        String searchName = Member.toSearchName(name);
+        lock.writeLock().lock();
+        try {
+            remove(memberId);
+            add(memberId, searchName);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 이름에 검색어가 포함된 회원 id 를 id 순으로 최대 limit 개 돌려준다
+     */
+    public LongList search(String query, int limit) {
+        String q = Member.toSearchName(query);
+        if (q == null || q.isEmpty() || limit <= 0) {
+            return LongLists.EMPTY_LIST;
+        }
+
+        lock.readLock().lock();
+        try {
+            LongIterator candidates;
+            if (q.length() < GRAM) {
+                candidates = memberIds.iterator();
+            } else {
+                LongList intersection = intersect(q);
+                if (intersection.isEmpty()) {
+                    return LongLists.EMPTY_LIST;
+                }
+                candidates = intersection.iterator();
+            }
+
+            LongArrayList result = new LongArrayList();
+            while (candidates.hasNext() && result.size() < limit) {
+                long memberId = candidates.nextLong();
+                if (names.get(memberId).contains(q)) {
+                    result.add(memberId);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 쓰기 락을 잡은 상태에서 호출한다
+    private void add(long memberId, String searchName) {
+        if (searchName == null) {
+            return;
+        }
+        names.put(memberId, searchName);
+        insertSorted(memberIds, memberId);
+        for (int i = 0; i + GRAM <= searchName.length(); i++) {
+            // 같은 이름 안에서 반복되는 조각은 한 번만 넣는다
+            insertSorted(postings.computeIfAbsent(gram(searchName, i), k -> new LongArrayList(4)), memberId);
+        }
+    }
+
+    // 쓰기 락을 잡은 상태에서 호출한다
+    private void remove(long memberId) {
+        String old = names.remove(memberId);
+        if (old == null) {
+            return;
+        }
+        removeSorted(memberIds, memberId);
+        for (int i = 0; i + GRAM <= old.length(); i++) {
+            long key = gram(old, i);
+            LongArrayList ids = postings.get(key);
+            if (ids == null) {
+                continue;
+            }
+            removeSorted(ids, memberId);
+            if (ids.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    // 읽기 락을 잡은 상태에서 호출한다. 가장 짧은 목록부터 병합해서 후보를 빨리 줄인다
+    private LongList intersect(String q) {
+        List<LongArrayList> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= q.length(); i++) {
+            LongArrayList ids = postings.get(gram(q, i));
+            if (ids == null) {
+                return LongLists.EMPTY_LIST;
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(LongArrayList::size));
+
+        LongArrayList result = new LongArrayList(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result = retain(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private static LongArrayList retain(LongArrayList a, LongArrayList b) {
+        LongArrayList out = new LongArrayList(Math.min(a.size(), b.size()));
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            long x = a.getLong(i);
+            long y = b.getLong(j);
+            if (x == y) {
+                out.add(x);
+                i++;
+                j++;
+            } else if (x < y) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return out;
+    }
+
+    // 정렬을 유지하면서 넣는다. 이미 있으면 넣지 않는다 (시작 시 생성은 id 순이라 항상 끝에 붙는다)
+    private static void insertSorted(LongArrayList ids, long id) {
+        int pos = Arrays.binarySearch(ids.elements(), 0, ids.size(), id);
+        if (pos < 0) {
+            ids.add(-pos - 1, id);
+        }
+    }
+
+    private static void removeSorted(LongArrayList ids, long id) {
+        int pos = Arrays.binarySearch(ids.elements(), 0, ids.size(), id);
+        if (pos >= 0) {
+            ids.removeLong(pos);
+        }
+    }
+
+    // 3글자(char 16bit 씩)를 long 하나로 묶는다
+    private static long gram(String s, int from) {
+        return ((long) s.charAt(from) << 32) | ((long) s.charAt(from + 1) << 16) | s.charAt(from + 2);
+    }
+}
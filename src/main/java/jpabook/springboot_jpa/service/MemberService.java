@@ -4,6 +4,7 @@ import jpabook.springboot_jpa.domain.Member;
 import jpabook.springboot_jpa.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,6 +17,7 @@ import java.util.List;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
 //    public MemberService(MemberRepository memberRepository) {
 //        this.memberRepository = memberRepository;
@@ -28,6 +30,7 @@ public class MemberService {
     public Long join(Member member) {
         validateDuplicateMember(member);
         memberRepository.save(member);
+        eventPublisher.publishEvent(new MemberChangedEvent(member.getId(), member.getName()));
         return member.getId();
     }
 
@@ -54,5 +57,6 @@ public class MemberService {
     public void update(Long id, String name) {
         Member member = memberRepository.findById(id).get();
         member.setName(name);
+        eventPublisher.publishEvent(new MemberChangedEvent(id, name));
     }
 }
@@ -0,0 +1,86 @@
+package jpabook.springboot_jpa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 낙관적 락 충돌 시 재시도
+ * - 재고(Item) 처럼 여러 요청이 동시에 수정하는 엔티티는 @Version 으로 충돌을 감지하고, 진 쪽을 다시 실행한다
+ * - 비관적 락(select for update)처럼 모든 구매자를 줄 세우지 않고, 충돌이 난 요청만 재시도한다
+ * - 재시도 간격은 지수 백오프 + 지터, 최대 횟수를 넘으면 예외를 그대로 던진다
+ * - 충돌/포기 횟수는 stock.optimistic.conflicts / stock.optimistic.exhausted 메트릭으로 노출
+ * 주의: 재시도는 새 트랜잭션이어야 의미가 있으므로 트랜잭션 밖(컨트롤러 등)에서 호출해야 한다
+ */
+@Slf4j
+@Component
+public class OptimisticLockRetryExecutor {
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Counter conflicts;
+    private final Counter exhausted;
+
+    public OptimisticLockRetryExecutor(MeterRegistry meterRegistry,
+                                       @Value("${jpashop.stock.retry.max-attempts:5}") int maxAttempts,
+                                       @Value("${jpashop.stock.retry.initial-backoff-ms:5}") long initialBackoffMillis,
+                                       @Value("${jpashop.stock.retry.max-backoff-ms:100}") long maxBackoffMillis) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.conflicts = meterRegistry.counter("stock.optimistic.conflicts");
+        this.exhausted = meterRegistry.counter("stock.optimistic.exhausted");
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("낙관적 락 재시도는 트랜잭션 밖에서 호출해야 합니다");
+        }
+
+        long backoff = initialBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("낙관적 락 재시도 {}회 모두 실패", attempt);
+                    throw e;
+                }
+                log.debug("낙관적 락 충돌, 재시도 {}/{}", attempt, maxAttempts);
+                sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+                backoff = Math.min(backoff * 2, maxBackoffMillis);
+            }
+        }
+    }
+
+    public void execute(Runnable action) {
+        execute(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public double getConflictCount() {
+        return conflicts.count();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("재시도 대기 중 인터럽트", e);
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package jpabook.springboot_jpa.service;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 주문 일괄 취소 결과
+ */
+@Getter
+public class OrderCancelResult {
+
+    private final List<Long> canceledOrderIds = new ArrayList<>();
+    private final List<Skipped> skipped = new ArrayList<>();
+
+    void cancel(Long orderId) {
+        canceledOrderIds.add(orderId);
+    }
+
+    void skip(Long orderId, String reason) {
+        skipped.add(new Skipped(orderId, reason));
+    }
+
+    @Getter
+    public static class Skipped {
+        private final Long orderId;
+        private final String reason;
+
+        public Skipped(Long orderId, String reason) {
+            this.orderId = orderId;
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package jpabook.springboot_jpa.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 주문 생성, 취소 이벤트
+ * - 대량 적재처럼 한 트랜잭션에서 여러 주문이 바뀌면 id 를 모아서 한번에 발행한다
+ * - occurredAt 은 읽기 모델 반영 지연(lag) 측정에 사용한다
+ */
+@Getter
+@RequiredArgsConstructor
+public class OrderChangedEvent {
+
+    private final List<Long> orderIds;
+    private final Instant occurredAt = Instant.now();
+
+}
@@ -0,0 +1,119 @@
+package jpabook.springboot_jpa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jpabook.springboot_jpa.domain.OrderCommand;
+import jpabook.springboot_jpa.repository.OrderCommandRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 접수 outbox 처리
+ * - 주기적으로 PENDING 명령을 batchSize 개까지 가져가서(claim) 고정 크기 워커 풀에 넘긴다
+ * - 워커 큐에 남은 자리만큼만 가져가므로, 주문이 몰려도 DB 커넥션은 워커 수 만큼만 쓰고 나머지는 테이블에서 기다린다
+ * - 주문 생성과 명령 DONE 처리는 한 트랜잭션이라, 중간에 죽어도 주문이 두 번 만들어지지 않는다
+ * - 재고 버전 충돌은 재시도하고, 그래도 실패하거나 재고 부족 등 업무 오류면 별도 트랜잭션으로 FAILED 를 남긴다
+ * - 오래 PROCESSING 에 머문 명령(처리 중 종료)은 다시 PENDING 으로 돌린다
+ *   (늦게 끝난 워커는 claimToken 이 바뀐 것을 보고 손을 떼므로, 다시 가져간 워커와 주문이 중복되지 않는다)
+ */
+@Slf4j
+@Component
+public class OrderCommandProcessor {
+
+    private final OrderCommandRepository orderCommandRepository;
+    private final OrderService orderService;
+    private final OptimisticLockRetryExecutor optimisticLockRetryExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor workers;
+    private final int batchSize;
+    private final long staleAfterSeconds;
+    private final Counter processedCounter;
+    private final Counter failedCounter;
+
+    public OrderCommandProcessor(OrderCommandRepository orderCommandRepository,
+                                 OrderService orderService,
+                                 OptimisticLockRetryExecutor optimisticLockRetryExecutor,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${jpashop.order-command.workers:4}") int workers,
+                                 @Value("${jpashop.order-command.batch-size:50}") int batchSize,
+                                 @Value("${jpashop.order-command.stale-after-seconds:300}") long staleAfterSeconds) {
+        this.orderCommandRepository = orderCommandRepository;
+        this.orderService = orderService;
+        this.optimisticLockRetryExecutor = optimisticLockRetryExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchSize), new CustomizableThreadFactory("order-command-"));
+        this.batchSize = batchSize;
+        this.staleAfterSeconds = staleAfterSeconds;
+        this.processedCounter = Counter.builder("order.command.processed").register(meterRegistry);
+        this.failedCounter = Counter.builder("order.command.failed").register(meterRegistry);
+        Gauge.builder("order.command.queued", this.workers, w -> w.getQueue().size() + w.getActiveCount()).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.order-command.poll-ms:200}")
+    public void poll() {
+        if (workers.isShutdown()) {
+            return;
+        }
+        int capacity = Math.min(batchSize, workers.getQueue().remainingCapacity());
+        if (capacity == 0) {
+            return;
+        }
+
+        String claimToken = UUID.randomUUID().toString();
+        List<Long> ids = transactionTemplate.execute(status -> orderCommandRepository.claim(claimToken, capacity));
+        for (Long id : ids) {
+            workers.execute(() -> process(id, claimToken)); // 이 스케줄러 스레드만 넣으므로 남은 자리를 넘지 않는다
+        }
+    }
+
+    void process(Long commandId, String claimToken) {
+        try {
+            optimisticLockRetryExecutor.execute(() -> transactionTemplate.execute(status -> {
+                OrderCommand command = orderCommandRepository.findClaimed(commandId, claimToken).orElse(null);
+                if (command == null) {
+                    return null; // 이미 처리됐거나 다시 대기 상태로 돌아가 다른 워커가 가져간 명령
+                }
+                Long orderId = orderService.order(command.getMemberId(), OrderLine.decode(command.getLines()));
+                command.done(orderId);
+                return orderId;
+            }));
+            processedCounter.increment();
+        } catch (RuntimeException e) {
+            failedCounter.increment();
+            log.info("주문 명령 처리 실패: commandId={}, reason={}", commandId, e.toString());
+            transactionTemplate.executeWithoutResult(status ->
+                    orderCommandRepository.findClaimed(commandId, claimToken).ifPresent(command -> command.fail(e.getMessage())));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.order-command.stale-check-ms:60000}")
+    public void releaseStale() {
+        int released = transactionTemplate.execute(status ->
+                orderCommandRepository.releaseStale(LocalDateTime.now().minusSeconds(staleAfterSeconds)));
+        if (released > 0) {
+            log.warn("처리 중 멈춘 주문 명령 {}건을 다시 대기 상태로 돌렸습니다", released);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,62 @@
+package jpabook.springboot_jpa.service;
+
+import jpabook.springboot_jpa.domain.OrderCommand;
+import jpabook.springboot_jpa.repository.ItemRepository;
+import jpabook.springboot_jpa.repository.MemberRepository;
+import jpabook.springboot_jpa.repository.OrderCommandRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 접수 (비동기)
+ * - 요청 스레드에서는 가벼운 검증과 outbox(order_command) insert 1건만 하고 바로 돌아간다
+ * - 재고 차감, 주문 생성은 OrderCommandProcessor 의 워커가 OrderService.order 로 처리한다
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class OrderCommandService {
+
+    private final OrderCommandRepository orderCommandRepository;
+    private final MemberRepository memberRepository;
+    private final ItemRepository itemRepository;
+
+    /**
+     * 주문 접수 후 추적 id 반환
+     * - 회원, 상품 존재 여부와 수량만 확인한다 (재고 부족은 처리 시점에 FAILED 로 남는다)
+     */
+    @Transactional
+    public String accept(Long memberId, List<OrderLine> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("주문 상품이 없습니다.");
+        }
+        for (OrderLine line : lines) {
+            if (line.getCount() <= 0) {
+                throw new IllegalArgumentException("주문 수량은 1개 이상이어야 합니다. itemId=" + line.getItemId());
+            }
+        }
+        if (!memberRepository.existsById(memberId)) {
+            throw new IllegalArgumentException("존재하지 않는 회원입니다. memberId=" + memberId);
+        }
+        Set<Long> itemIds = lines.stream()
+                .map(OrderLine::getItemId)
+                .collect(Collectors.toSet());
+        if (itemRepository.findAllById(itemIds).size() != itemIds.size()) {
+            throw new IllegalArgumentException("존재하지 않는 상품이 있습니다. itemIds=" + itemIds);
+        }
+
+        OrderCommand command = OrderCommand.create(memberId, OrderLine.encode(lines));
+        orderCommandRepository.save(command);
+        return command.getTrackingId();
+    }
+
+    public Optional<OrderCommand> findByTrackingId(String trackingId) {
+        return orderCommandRepository.findByTrackingId(trackingId);
+    }
+}
@@ -0,0 +1,60 @@
+package jpabook.springboot_jpa.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jpabook.springboot_jpa.repository.order.query.OrderFlatDto;
+import jpabook.springboot_jpa.repository.order.query.OrderFlatGrouper;
+import jpabook.springboot_jpa.repository.order.query.OrderQueryDto;
+import jpabook.springboot_jpa.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderExportService {
+
+    private static final int FLUSH_INTERVAL = 500;
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 전체 주문을 NDJSON(한 줄에 주문 1건)으로 내보낸다
+     * - 플랫 조회 결과를 커서로 읽으면서 order_id 가 바뀔 때마다 바로 응답에 쓴다
+     * - 전체 결과를 List 로 모으지 않으므로 주문 수와 상관없이 힙 사용량이 일정하다
+     * - 스트림은 트랜잭션(커넥션)이 살아있는 동안만 읽을 수 있으므로 서비스 계층에서 끝까지 쓴다
+     *
+     * @return 내보낸 주문 수
+     */
+    public long exportNdjson(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(OrderQueryDto.class);
+        long[] count = {0};
+
+        try (Stream<OrderFlatDto> flats = orderQueryRepository.streamAllByDto_flat()) {
+            OrderFlatGrouper.forEachOrder(flats.iterator(), order -> {
+                try {
+                    out.write(writer.writeValueAsBytes(order));
+                    out.write('\n');
+                    if (++count[0] % FLUSH_INTERVAL == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        out.flush();
+        return count[0];
+    }
+
+}
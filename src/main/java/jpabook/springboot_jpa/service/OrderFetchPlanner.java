@@ -0,0 +1,221 @@
+package jpabook.springboot_jpa.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Order;
+import jpabook.springboot_jpa.repository.OrderRepository;
+import jpabook.springboot_jpa.repository.order.query.OrderFlatDto;
+import jpabook.springboot_jpa.repository.order.query.OrderFlatGrouper;
+import jpabook.springboot_jpa.repository.order.query.OrderItemQueryDto;
+import jpabook.springboot_jpa.repository.order.query.OrderQueryDto;
+import jpabook.springboot_jpa.repository.order.query.OrderQueryRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 주문 컬렉션 조회 전략 선택기
+ * - V3.1 (엔티티 + batch fetch), V5 (DTO 1 + 1), V6 (DTO 플랫 조인) 중 하나를 골라서 실행한다
+ * - 처음에는 한 페이지에서 플랫 조인이 만들 중복 row 수(페이지 크기 x (주문당 평균 주문상품 수 - 1))로 고른다
+ *   중복이 적으면 V6, 많으면 V5 (페이지가 작으면 주문상품이 많아도 V6 의 중복 비용이 작다)
+ * - 세 전략 모두 같은 윈도우(member, delivery 를 가진 주문을 order by o.id 로 offset/limit)를 읽고,
+ *   주문상품이 없는 주문도 빈 orderItems 로 포함한다
+ * - 실행할 때마다 전략별 주문 1건당 처리 시간을 기록하고, 현재 전략이 계속 지면 빠른 쪽으로 바꾼다
+ * - 가끔씩 다른 전략도 실행해서 측정값이 오래되지 않게 한다
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderFetchPlanner {
+
+    private static final long STATS_REFRESH_NANOS = 60_000_000_000L; // 통계 갱신 주기 60초
+    private static final double LOW_DUPLICATION_ITEMS_PER_ORDER = 2.0; // 이 이하면 페이지 크기와 상관없이 플랫 조인의 중복이 적다
+    private static final long DUPLICATED_ROW_BUDGET = 1000; // 한 페이지에서 허용하는 플랫 조인 중복 row 수
+    private static final int MIN_SAMPLES = 5; // 이만큼 측정하기 전에는 통계 기반 선택만 한다
+    private static final int EXPLORE_INTERVAL = 20; // N번에 한번은 다른 전략도 측정
+    private static final double SWITCH_MARGIN = 1.2; // 20% 이상 느릴 때만 전략을 바꾼다
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final OrderRepository orderRepository;
+    private final OrderQueryRepository orderQueryRepository;
+    private final EntityManager em;
+
+    private final Map<OrderFetchStrategy, LatencyStats> pagedStats = newStats();
+    private final Map<OrderFetchStrategy, LatencyStats> unpagedStats = newStats();
+    private final AtomicLong calls = new AtomicLong();
+
+    private volatile long orderCount = -1;
+    private volatile double avgItemsPerOrder = -1;
+    private volatile long statsRefreshedAt;
+
+    public enum OrderFetchStrategy {
+        V3_1, V5, V6
+    }
+
+    @Getter
+    public static class OrderFetchResult {
+        private final OrderFetchStrategy strategy;
+        private final List<OrderQueryDto> orders;
+
+        public OrderFetchResult(OrderFetchStrategy strategy, List<OrderQueryDto> orders) {
+            this.strategy = strategy;
+            this.orders = orders;
+        }
+    }
+
+    /**
+     * @param limit null 이면 페이징하지 않는다 (V3.1 은 후보에서 빠진다)
+     */
+    public OrderFetchResult findOrders(int offset, Integer limit) {
+        boolean paged = limit != null;
+        OrderFetchStrategy strategy = choose(limit);
+
+        long start = System.nanoTime();
+        List<OrderQueryDto> orders = execute(strategy, offset, limit);
+        long elapsed = System.nanoTime() - start;
+
+        stats(paged).get(strategy).record(elapsed / Math.max(1, orders.size()));
+        return new OrderFetchResult(strategy, orders);
+    }
+
+    OrderFetchStrategy choose(Integer limit) {
+        boolean paged = limit != null;
+        List<OrderFetchStrategy> candidates = candidates(paged);
+        Map<OrderFetchStrategy, LatencyStats> stats = stats(paged);
+
+        // 탐색: 측정이 가장 덜 된 전략을 가끔 실행
+        if (calls.incrementAndGet() % EXPLORE_INTERVAL == 0) {
+            return candidates.stream()
+                    .min((a, b) -> Long.compare(stats.get(a).getSamples(), stats.get(b).getSamples()))
+                    .get();
+        }
+
+        OrderFetchStrategy preferred = preferredByShape(limit);
+        if (candidates.stream().anyMatch(s -> stats.get(s).getSamples() < MIN_SAMPLES)) {
+            return preferred;
+        }
+
+        // 통계 기반 전략이 계속 지고 있으면 가장 빠른 전략으로 교체
+        OrderFetchStrategy fastest = candidates.stream()
+                .min((a, b) -> Double.compare(stats.get(a).getNanosPerOrder(), stats.get(b).getNanosPerOrder()))
+                .get();
+        if (stats.get(preferred).getNanosPerOrder() > stats.get(fastest).getNanosPerOrder() * SWITCH_MARGIN) {
+            return fastest;
+        }
+        return preferred;
+    }
+
+    /**
+     * 페이지 크기(페이징하지 않으면 전체 주문 수)와 주문당 평균 주문상품 수로 플랫 조인의 중복 row 수를 추정한다
+     */
+    OrderFetchStrategy preferredByShape(Integer limit) {
+        double avgItems = averageItemsPerOrder();
+        if (avgItems <= LOW_DUPLICATION_ITEMS_PER_ORDER) {
+            return OrderFetchStrategy.V6;
+        }
+        long pageOrders = limit == null ? orderCount : Math.min(limit, orderCount);
+        double duplicatedRows = pageOrders * (avgItems - 1);
+        return duplicatedRows <= DUPLICATED_ROW_BUDGET ? OrderFetchStrategy.V6 : OrderFetchStrategy.V5;
+    }
+
+    private List<OrderFetchStrategy> candidates(boolean paged) {
+        return paged
+                ? List.of(OrderFetchStrategy.V3_1, OrderFetchStrategy.V5, OrderFetchStrategy.V6)
+                : List.of(OrderFetchStrategy.V5, OrderFetchStrategy.V6);
+    }
+
+    private List<OrderQueryDto> execute(OrderFetchStrategy strategy, int offset, Integer limit) {
+        switch (strategy) {
+            case V3_1:
+                return orderRepository.findAllWithMemberDelivery(offset, limit).stream()
+                        .map(o -> toQueryDto(o))
+                        .collect(toList());
+            case V5:
+                return limit == null
+                        ? orderQueryRepository.findAllByDto_optimization()
+                        : orderQueryRepository.findAllByDto_optimization(offset, limit);
+            default:
+                if (limit != null) {
+                    return orderQueryRepository.findAllByDto_flat(offset, limit);
+                }
+                List<OrderQueryDto> result = new ArrayList<>();
+                try (Stream<OrderFlatDto> flats = orderQueryRepository.streamAllByDto_flat()) {
+                    OrderFlatGrouper.forEachOrder(flats.iterator(), result::add);
+                }
+                return result;
+        }
+    }
+
+    /**
+     * 주문당 평균 주문상품 수 (count 쿼리 2번, 주기적으로만 갱신)
+     */
+    private double averageItemsPerOrder() {
+        long now = System.nanoTime();
+        if (avgItemsPerOrder < 0 || now - statsRefreshedAt > STATS_REFRESH_NANOS) {
+            Long orderCount = em.createQuery("select count(o) from Order o", Long.class).getSingleResult();
+            Long orderItemCount = em.createQuery("select count(oi) from OrderItem oi", Long.class).getSingleResult();
+            updateShape(orderCount, orderItemCount, now);
+        }
+        return avgItemsPerOrder;
+    }
+
+    void updateShape(long orderCount, long orderItemCount, long now) {
+        this.orderCount = orderCount;
+        avgItemsPerOrder = orderCount == 0 ? 0 : (double) orderItemCount / orderCount;
+        statsRefreshedAt = now;
+        log.debug("order shape refreshed: orderCount={}, avgItemsPerOrder={}", orderCount, avgItemsPerOrder);
+    }
+
+    private OrderQueryDto toQueryDto(Order order) {
+        List<OrderItemQueryDto> orderItems = order.getOrderItems().stream()
+                .map(oi -> new OrderItemQueryDto(order.getId(), oi.getItem().getName(), oi.getOrderPrice(), oi.getCount()))
+                .collect(toList());
+        return new OrderQueryDto(order.getId(), order.getMember().getName(), order.getOrderDate(), order.getStatus(),
+                order.getDelivery().getAddress(), orderItems);
+    }
+
+    Map<OrderFetchStrategy, LatencyStats> stats(boolean paged) {
+        return paged ? pagedStats : unpagedStats;
+    }
+
+    private static Map<OrderFetchStrategy, LatencyStats> newStats() {
+        Map<OrderFetchStrategy, LatencyStats> stats = new EnumMap<>(OrderFetchStrategy.class);
+        for (OrderFetchStrategy strategy : OrderFetchStrategy.values()) {
+            stats.put(strategy, new LatencyStats());
+        }
+        return stats;
+    }
+
+    /**
+     * 주문 1건당 처리 시간의 지수 이동 평균
+     */
+    static class LatencyStats {
+        private long samples;
+        private double nanosPerOrder;
+
+        synchronized void record(long nanosPerOrder) {
+            this.nanosPerOrder = samples == 0 ? nanosPerOrder : EWMA_ALPHA * nanosPerOrder + (1 - EWMA_ALPHA) * this.nanosPerOrder;
+            samples++;
+        }
+
+        synchronized long getSamples() {
+            return samples;
+        }
+
+        synchronized double getNanosPerOrder() {
+            return nanosPerOrder;
+        }
+    }
+
+}
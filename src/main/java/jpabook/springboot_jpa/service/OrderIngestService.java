@@ -0,0 +1,274 @@
+package jpabook.springboot_jpa.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Delivery;
+import jpabook.springboot_jpa.domain.Member;
+import jpabook.springboot_jpa.domain.Order;
+import jpabook.springboot_jpa.domain.OrderItem;
+import jpabook.springboot_jpa.domain.item.Item;
+import jpabook.springboot_jpa.exception.NotEnoughStockException;
+import jpabook.springboot_jpa.repository.ItemRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 대량 주문 적재 (파트너 주문 파일)
+ * - 입력(CSV 또는 NDJSON)을 한 줄씩 읽으면서 chunkSize 만큼 모아서 처리한다 (전체를 메모리에 올리지 않는다)
+ * - chunk 마다 회원/상품을 IN 쿼리로 한번에 조회하고, 한 트랜잭션으로 커밋한 뒤 flush/clear 로 영속성 컨텍스트를 비운다
+ * - 실패한 줄은 줄 번호와 사유만 기록하고 나머지는 계속 적재한다
+ * - 온라인 주문과 재고 버전이 충돌하면 chunk 단위로 재시도한다
+ * - 커밋된 chunk 의 주문 id 는 OrderChangedEvent 하나로 묶어서 발행한다 (읽기 모델 갱신용)
+ *
+ * 입력 형식 (한 줄 = 주문 1건)
+ * - CSV    : memberId,itemId,count (첫 줄이 숫자로 시작하지 않으면 헤더로 보고 건너뛴다)
+ * - NDJSON : {"memberId":1,"itemId":2,"count":3}
+ */
+@Slf4j
+@Service
+public class OrderIngestService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private final EntityManager em;
+    private final ItemRepository itemRepository;
+    private final StockService stockService;
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticLockRetryExecutor optimisticLockRetryExecutor;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public OrderIngestService(EntityManager em,
+                              ItemRepository itemRepository,
+                              StockService stockService,
+                              PlatformTransactionManager transactionManager,
+                              OptimisticLockRetryExecutor optimisticLockRetryExecutor,
+                              ObjectMapper objectMapper,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${jpashop.ingest.chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.itemRepository = itemRepository;
+        this.stockService = stockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.optimisticLockRetryExecutor = optimisticLockRetryExecutor;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    public IngestResult ingest(InputStream in, Format format) throws IOException {
+        IngestResult result = new IngestResult();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        List<IngestRow> chunk = new ArrayList<>(chunkSize);
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && !Character.isDigit(line.trim().charAt(0)))) {
+                continue;
+            }
+
+            result.totalRows++;
+            try {
+                chunk.add(format == Format.CSV ? parseCsv(lineNumber, line) : parseJson(lineNumber, line));
+            } catch (IllegalArgumentException | IOException e) {
+                result.addError(lineNumber, "파싱 실패: " + e.getMessage());
+            }
+
+            if (chunk.size() == chunkSize) {
+                processChunk(chunk, result);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, result);
+        }
+
+        log.info("대량 주문 적재 완료: total={}, imported={}, failed={}", result.totalRows, result.importedOrders, result.failedRows);
+        return result;
+    }
+
+    private void processChunk(List<IngestRow> rows, IngestResult result) {
+        try {
+            ChunkResult chunkResult = optimisticLockRetryExecutor.execute(() -> transactionTemplate.execute(status -> saveChunk(rows)));
+            result.merge(chunkResult);
+        } catch (OptimisticLockingFailureException e) {
+            rows.forEach(row -> result.addError(row.lineNumber, "재고 충돌로 적재 실패"));
+        } catch (RuntimeException e) {
+            log.warn("chunk 적재 실패: lines {}~{}", rows.get(0).lineNumber, rows.get(rows.size() - 1).lineNumber, e);
+            rows.forEach(row -> result.addError(row.lineNumber, "적재 실패: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * chunk 하나를 한 트랜잭션으로 저장 (재시도 시 처음부터 다시 실행되므로 결과는 새로 만든다)
+     */
+    private ChunkResult saveChunk(List<IngestRow> rows) {
+        ChunkResult chunkResult = new ChunkResult();
+
+        // 회원, 상품을 IN 쿼리 한번씩으로 조회
+        Map<Long, Member> members = findMembers(rows.stream().map(r -> r.memberId).collect(Collectors.toSet()));
+        Map<Long, Item> items = itemRepository.findAllById(rows.stream().map(r -> r.itemId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        for (IngestRow row : rows) {
+            Member member = members.get(row.memberId);
+            Item item = items.get(row.itemId);
+            if (member == null) {
+                chunkResult.errors.add(new IngestError(row.lineNumber, "존재하지 않는 회원입니다. memberId=" + row.memberId));
+                continue;
+            }
+            if (item == null) {
+                chunkResult.errors.add(new IngestError(row.lineNumber, "존재하지 않는 상품입니다. itemId=" + row.itemId));
+                continue;
+            }
+            if (row.count <= 0) {
+                chunkResult.errors.add(new IngestError(row.lineNumber, "주문 수량은 1개 이상이어야 합니다."));
+                continue;
+            }
+
+            try {
+                OrderItem orderItem = stockService.createOrderItem(item, item.getPrice(), row.count);
+
+                Delivery delivery = new Delivery();
+                delivery.setAddress(member.getAddress());
+
+                Order order = Order.createOrder(member, delivery, orderItem);
+                em.persist(order);
+                stockService.recordOrder(order);
+                chunkResult.orderIds.add(order.getId());
+                chunkResult.imported++;
+            } catch (NotEnoughStockException e) {
+                // removeStock, 인기 상품 예약 모두 재고를 바꾸기 전에 예외를 던지므로 이 줄만 건너뛰면 된다
+                chunkResult.errors.add(new IngestError(row.lineNumber, "재고 부족: itemId=" + row.itemId));
+            }
+        }
+
+        if (!chunkResult.orderIds.isEmpty()) {
+            eventPublisher.publishEvent(new OrderChangedEvent(chunkResult.orderIds));
+        }
+
+        // 영속성 컨텍스트가 계속 커지지 않도록 chunk 마다 비운다 (OSIV 로 EntityManager 가 요청 내내 유지되는 경우 포함)
+        flush();
+        em.clear();
+        return chunkResult;
+    }
+
+    /**
+     * 직접 호출한 flush 는 @Repository 예외 변환을 거치지 않으므로, 재고 버전 충돌(jakarta OptimisticLockException)을
+     * 스프링 예외(OptimisticLockingFailureException)로 바꿔야 OptimisticLockRetryExecutor 가 chunk 를 재시도한다
+     */
+    private void flush() {
+        try {
+            em.flush();
+        } catch (RuntimeException e) {
+            DataAccessException translated = EntityManagerFactoryUtils.convertJpaAccessExceptionIfPossible(e);
+            throw translated != null ? translated : e;
+        }
+    }
+
+    private Map<Long, Member> findMembers(Set<Long> memberIds) {
+        return em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", memberIds)
+                .getResultList().stream()
+                .collect(Collectors.toMap(Member::getId, Function.identity()));
+    }
+
+    private IngestRow parseCsv(long lineNumber, String line) {
+        String[] cols = line.split(",");
+        if (cols.length < 3) {
+            throw new IllegalArgumentException("컬럼 수가 부족합니다 (memberId,itemId,count)");
+        }
+        return new IngestRow(lineNumber, Long.parseLong(cols[0].trim()), Long.parseLong(cols[1].trim()), Integer.parseInt(cols[2].trim()));
+    }
+
+    private IngestRow parseJson(long lineNumber, String line) throws IOException {
+        JsonNode node = objectMapper.readTree(line);
+        if (!node.hasNonNull("memberId") || !node.hasNonNull("itemId") || !node.hasNonNull("count")) {
+            throw new IllegalArgumentException("memberId, itemId, count 는 필수입니다");
+        }
+        return new IngestRow(lineNumber, node.get("memberId").asLong(), node.get("itemId").asLong(), node.get("count").asInt());
+    }
+
+    private static class IngestRow {
+        private final long lineNumber;
+        private final Long memberId;
+        private final Long itemId;
+        private final int count;
+
+        IngestRow(long lineNumber, Long memberId, Long itemId, int count) {
+            this.lineNumber = lineNumber;
+            this.memberId = memberId;
+            this.itemId = itemId;
+            this.count = count;
+        }
+    }
+
+    private static class ChunkResult {
+        private long imported;
+        private final List<Long> orderIds = new ArrayList<>();
+        private final List<IngestError> errors = new ArrayList<>();
+    }
+
+    /**
+     * 적재 결과 (실패 사유는 앞에서부터 최대 1000건만 담는다)
+     */
+    @Getter
+    public static class IngestResult {
+        private long totalRows;
+        private long importedOrders;
+        private long failedRows;
+        private final List<IngestError> errors = new ArrayList<>();
+
+        private void merge(ChunkResult chunkResult) {
+            importedOrders += chunkResult.imported;
+            chunkResult.errors.forEach(e -> addError(e.getLine(), e.getMessage()));
+        }
+
+        private void addError(long line, String message) {
+            failedRows++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new IngestError(line, message));
+            }
+        }
+    }
+
+    @Getter
+    public static class IngestError {
+        private final long line;
+        private final String message;
+
+        public IngestError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+    }
+
+}
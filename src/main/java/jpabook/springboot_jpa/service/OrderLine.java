@@ -0,0 +1,45 @@
+package jpabook.springboot_jpa.service;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 주문 한 줄 (상품, 수량)
+ */
+@Getter
+public class OrderLine {
+
+    private final Long itemId;
+    private final int count;
+
+    public OrderLine(Long itemId, int count) {
+        this.itemId = itemId;
+        this.count = count;
+    }
+
+    /**
+     * "itemId:count,itemId:count" 형태로 직렬화 (주문 접수 outbox 저장용)
+     */
+    public static String encode(List<OrderLine> lines) {
+        StringBuilder sb = new StringBuilder();
+        for (OrderLine line : lines) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(line.itemId).append(':').append(line.count);
+        }
+        return sb.toString();
+    }
+
+    public static List<OrderLine> decode(String encoded) {
+        List<OrderLine> lines = new ArrayList<>();
+        for (String token : encoded.split(",")) {
+            int idx = token.indexOf(':');
+            lines.add(new OrderLine(Long.valueOf(token.substring(0, idx)), Integer.parseInt(token.substring(idx + 1))));
+        }
+        return lines;
+    }
+
+}
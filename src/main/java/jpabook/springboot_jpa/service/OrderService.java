@@ -1,28 +1,44 @@
 package jpabook.springboot_jpa.service;
 
+import it.unimi.dsi.fastutil.longs.LongList;
 import jpabook.springboot_jpa.domain.Delivery;
+import jpabook.springboot_jpa.domain.DeliveryStatus;
 import jpabook.springboot_jpa.domain.Member;
 import jpabook.springboot_jpa.domain.Order;
 import jpabook.springboot_jpa.domain.OrderItem;
+import jpabook.springboot_jpa.domain.OrderStatus;
 import jpabook.springboot_jpa.domain.item.Item;
 import jpabook.springboot_jpa.repository.ItemRepository;
 import jpabook.springboot_jpa.repository.MemberRepository;
 import jpabook.springboot_jpa.repository.OrderRepository;
 import jpabook.springboot_jpa.repository.OrderSearch;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class OrderService {
 
+    private static final int MAX_MEMBER_CANDIDATES = 1000; // IN 절에 넣을 회원 id 최대 개수
+    private static final int MAX_CANCEL_ORDERS = 1000; // 일괄 취소 한번에 받는 주문 수
+
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final MemberNameIndex memberNameIndex;
+    private final StockService stockService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 주문
@@ -39,33 +55,132 @@ public class OrderService {
         delivery.setAddress(member.getAddress());
 
         // 주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        OrderItem orderItem = stockService.createOrderItem(item, item.getPrice(), count);
 
         // 주문 생성
         Order order = Order.createOrder(member, delivery, orderItem);
 
         // 주문 저장
         orderRepository.save(order); // -> order 엔티티를 보면 cascade 옵션을 설정해놔서 order 만 persist 해주면 cascade 걸려있는 애들은 다 됨
+        stockService.recordOrder(order);
+        eventPublisher.publishEvent(new OrderChangedEvent(List.of(order.getId())));
+
+        return order.getId();
+    }
+
+    /**
+     * 여러 상품 주문 (장바구니)
+     * - 상품은 IN 쿼리 한번으로 조회하고, 한 트랜잭션에서 모든 줄의 재고를 차감한다
+     * - 한 줄이라도 재고가 부족하면 전체 주문이 롤백된다
+     * - insert 는 hibernate.jdbc.batch_size 로 묶여서 나간다
+     */
+    @Transactional
+    public Long order(Long memberId, List<OrderLine> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("주문 상품이 없습니다.");
+        }
+
+        // 엔티티 조회
+        Member member = memberRepository.findById(memberId).get();
+        Set<Long> itemIds = lines.stream()
+                .map(OrderLine::getItemId)
+                .collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, item -> item));
+
+        // 배송정보 생성
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+
+        // 주문상품 생성
+        OrderItem[] orderItems = new OrderItem[lines.size()];
+        for (int i = 0; i < lines.size(); i++) {
+            OrderLine line = lines.get(i);
+            Item item = items.get(line.getItemId());
+            if (item == null) {
+                throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + line.getItemId());
+            }
+            if (line.getCount() <= 0) {
+                throw new IllegalArgumentException("주문 수량은 1개 이상이어야 합니다. itemId=" + line.getItemId());
+            }
+            orderItems[i] = stockService.createOrderItem(item, item.getPrice(), line.getCount());
+        }
+
+        // 주문 생성, 저장
+        Order order = Order.createOrder(member, delivery, orderItems);
+        orderRepository.save(order);
+        stockService.recordOrder(order);
+        eventPublisher.publishEvent(new OrderChangedEvent(List.of(order.getId())));
 
         return order.getId();
     }
 
     /**
      * 주문 취소
+     * - 주문 행을 잠그고 읽으므로 같은 주문을 동시에 취소해도 한쪽만 재고를 돌려주고, 나머지는 이미 취소된 주문으로 실패한다
      */
     @Transactional
     public void cancelOrder(Long orderId) {
         // 주문 조회
-        Order order = orderRepository.findOne(orderId);
+        Order order = orderRepository.findOneForUpdate(orderId);
 
-        // 주문 취소
-        order.cancel();
+        // 주문 취소 (재고 복구와 변동 기록은 StockService)
+        stockService.cancel(List.of(order));
+        eventPublisher.publishEvent(new OrderChangedEvent(List.of(orderId)));
     }
 
+    /**
+     * 주문 일괄 취소 (결제 실패 묶음, 잘못된 프로모션 등)
+     * - 주문은 IN 쿼리 한번으로 읽고, 재고는 상품별로 합쳐서 상품당 update 한번으로 돌려준다
+     * - 없는 주문, 이미 취소된 주문, 배송완료된 주문은 건너뛰고 사유를 돌려준다 (나머지는 취소)
+     */
+    @Transactional
+    public OrderCancelResult cancelOrders(Collection<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            throw new IllegalArgumentException("취소할 주문이 없습니다.");
+        }
+        if (orderIds.size() > MAX_CANCEL_ORDERS) {
+            throw new IllegalArgumentException("한번에 " + MAX_CANCEL_ORDERS + "건까지 취소할 수 있습니다. size=" + orderIds.size());
+        }
+
+        Map<Long, Order> orders = orderRepository.findAllWithItems(orderIds).stream()
+                .collect(Collectors.toMap(Order::getId, order -> order));
+
+        OrderCancelResult result = new OrderCancelResult();
+        List<Order> cancelable = new ArrayList<>();
+        for (Long orderId : new LinkedHashSet<>(orderIds)) {
+            Order order = orders.get(orderId);
+            if (order == null) {
+                result.skip(orderId, "존재하지 않는 주문입니다.");
+            } else if (order.getStatus() == OrderStatus.CANCEL) {
+                result.skip(orderId, "이미 취소된 주문입니다.");
+            } else if (order.getDelivery().getStatus() == DeliveryStatus.COMP) {
+                result.skip(orderId, "이미 배송완료된 주문입니다.");
+            } else {
+                cancelable.add(order);
+                result.cancel(orderId);
+            }
+        }
+
+        if (!cancelable.isEmpty()) {
+            stockService.cancel(cancelable);
+            eventPublisher.publishEvent(new OrderChangedEvent(result.getCanceledOrderIds()));
+        }
+        return result;
+    }
 
     // 검색
     public List<Order> findOrders(OrderSearch orderSearch) {
-        return orderRepository.findAll(orderSearch);
+        return orderRepository.search(orderSearch);
+    }
+
+    /**
+     * 회원 이름 부분 일치 검색
+     * - 메모리 trigram 인덱스로 후보 회원 id 를 구한 뒤 member_id IN 으로 주문을 조회한다
+     */
+    public List<Order> findOrdersByMemberNameContaining(String memberName, OrderStatus status) {
+        LongList memberIds = memberNameIndex.search(memberName, MAX_MEMBER_CANDIDATES);
+        return orderRepository.findAllByMemberIds(memberIds, status);
     }
 
 }
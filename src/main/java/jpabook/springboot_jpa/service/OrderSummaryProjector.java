@@ -0,0 +1,226 @@
+package jpabook.springboot_jpa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Address;
+import jpabook.springboot_jpa.domain.Member;
+import jpabook.springboot_jpa.domain.OrderStatus;
+import jpabook.springboot_jpa.domain.OrderSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * order_summary 읽기 모델 갱신
+ * - 주문/회원 변경 트랜잭션이 커밋된 뒤(AFTER_COMMIT) 이벤트를 받아 별도 트랜잭션에서 요약 행을 갱신한다
+ * - 단일 스레드에서 순서대로 처리하므로 같은 주문의 변경이 뒤바뀌어 반영되지 않는다
+ * - 변경 발생 ~ 요약 반영까지의 지연은 order.summary.lag 타이머, 밀린 작업 수는 order.summary.pending 게이지로 노출한다
+ * - 시작 시에는 insert-select 한번으로 전체를 다시 만든다
+ * <p>
+ * 반영 실패
+ * - 작업 큐는 queue-capacity 로 제한한다 (DB 가 느려져도 이벤트가 메모리에 무한정 쌓이지 않는다)
+ * - 반영이 실패했거나 큐가 가득 차서 받지 못한 주문/회원 id 는 재시도 목록에 넣고, retry-ms 마다 다시 반영한다
+ * - 재시도는 이벤트 내용이 아니라 그 시점의 주문/회원 행을 다시 읽어서 반영하므로 순서가 늦어져도 최신 값이 남는다
+ */
+@Slf4j
+@Component
+public class OrderSummaryProjector {
+
+    private static final int IN_CHUNK = 1000;
+    private static final int MAX_IDS_PER_RETRY = 10_000;
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final boolean rebuildOnStartup;
+    private final Timer lagTimer;
+    private final Counter failureCounter;
+    private final Counter rejectedCounter;
+
+    private final Queue<Long> retryOrderIds = new ConcurrentLinkedQueue<>();
+    private final Set<Long> retryMemberIds = ConcurrentHashMap.newKeySet();
+
+    public OrderSummaryProjector(EntityManager em,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${jpashop.order-summary.rebuild-on-startup:true}") boolean rebuildOnStartup,
+                                 @Value("${jpashop.order-summary.queue-capacity:10000}") int queueCapacity) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("order-summary-"));
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.lagTimer = Timer.builder("order.summary.lag")
+                .description("주문/회원 변경 발생부터 order_summary 반영까지 걸린 시간")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("order.summary.failures").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("order.summary.rejected").register(meterRegistry);
+        Gauge.builder("order.summary.pending", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("order.summary.retry", retryOrderIds, Queue::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (rebuildOnStartup) {
+            executor.execute(this::rebuild);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onOrderChanged(OrderChangedEvent event) {
+        List<Long> orderIds = event.getOrderIds();
+        submit(event.getOccurredAt(), () -> project(orderIds), () -> retryOrderIds.addAll(orderIds));
+    }
+
+    @TransactionalEventListener
+    public void onMemberChanged(MemberChangedEvent event) {
+        Long memberId = event.getMemberId();
+        submit(event.getOccurredAt(), () -> renameMember(memberId, event.getName()), () -> retryMemberIds.add(memberId));
+    }
+
+    /**
+     * 실패했던 주문/회원을 현재 값으로 다시 반영 (작업 큐에 넣기만 하므로 공용 스케줄러 스레드를 오래 잡지 않는다)
+     */
+    @Scheduled(fixedDelayString = "${jpashop.order-summary.retry-ms:10000}")
+    public void retryFailed() {
+        List<Long> orderIds = new ArrayList<>();
+        Long id;
+        while (orderIds.size() < MAX_IDS_PER_RETRY && (id = retryOrderIds.poll()) != null) {
+            orderIds.add(id);
+        }
+        if (!orderIds.isEmpty()) {
+            log.info("order_summary 재반영: orders={}", orderIds.size());
+            submit(Instant.now(), () -> project(orderIds), () -> retryOrderIds.addAll(orderIds));
+        }
+
+        for (Long memberId : List.copyOf(retryMemberIds)) {
+            retryMemberIds.remove(memberId);
+            submit(Instant.now(), () -> renameMember(memberId), () -> retryMemberIds.add(memberId));
+        }
+    }
+
+    private void submit(Instant occurredAt, Runnable projection, Runnable retryLater) {
+        try {
+            executor.execute(() -> {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> projection.run());
+                    lagTimer.record(Duration.between(occurredAt, Instant.now()));
+                } catch (RuntimeException e) {
+                    failureCounter.increment();
+                    retryLater.run();
+                    log.error("order_summary 반영 실패 (다음 재시도 때 다시 반영한다)", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            retryLater.run();
+            log.warn("order_summary 작업 큐가 가득 차서 다음 재시도로 미룬다");
+        }
+    }
+
+    private void project(List<Long> orderIds) {
+        for (int from = 0; from < orderIds.size(); from += IN_CHUNK) {
+            List<Long> ids = orderIds.subList(from, Math.min(from + IN_CHUNK, orderIds.size()));
+
+            Map<Long, OrderSummary> summaries = em.createQuery(
+                            "select s from OrderSummary s where s.orderId in :ids", OrderSummary.class)
+                    .setParameter("ids", ids)
+                    .getResultList().stream()
+                    .collect(Collectors.toMap(OrderSummary::getOrderId, Function.identity()));
+
+            List<Object[]> rows = em.createQuery(
+                            "select o.id, m.id, m.name, o.orderDate, o.status, d.address, o.totalPrice, o.itemCount" +
+                                    " from Order o" +
+                                    " join o.member m" +
+                                    " join o.delivery d" +
+                                    " where o.id in :ids", Object[].class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+
+            for (Object[] row : rows) {
+                Long orderId = (Long) row[0];
+                OrderSummary summary = summaries.get(orderId);
+                if (summary == null) {
+                    summary = new OrderSummary(orderId);
+                    em.persist(summary);
+                }
+                summary.update((Long) row[1], (String) row[2], (LocalDateTime) row[3], (OrderStatus) row[4], (Address) row[5],
+                        row[6] != null ? (Integer) row[6] : 0, row[7] != null ? (Integer) row[7] : 0);
+            }
+        }
+    }
+
+    private void renameMember(Long memberId) {
+        Member member = em.find(Member.class, memberId);
+        if (member != null) {
+            renameMember(memberId, member.getName());
+        }
+    }
+
+    private void renameMember(Long memberId, String name) {
+        em.createQuery("update OrderSummary s set s.memberName = :name, s.projectedAt = :now where s.memberId = :memberId")
+                .setParameter("name", name)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+    }
+
+    /**
+     * 전체 재구성 (조인 결과를 insert-select 한번으로 복사)
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        int rows = transactionTemplate.execute(status -> {
+            em.createQuery("delete from OrderSummary").executeUpdate();
+            return em.createNativeQuery(
+                            "insert into order_summary (order_id, member_id, member_name, order_date, status, city, street, zipcode," +
+                                    " total_price, item_count, projected_at)" +
+                                    " select o.order_id, m.member_id, m.name, o.order_date, o.status, d.city, d.street, d.zipcode," +
+                                    " coalesce(o.total_price, 0), coalesce(o.item_count, 0), current_timestamp" +
+                                    " from orders o" +
+                                    " join member m on m.member_id = o.member_id" +
+                                    " join delivery d on d.delivery_id = o.delivery_id")
+                    .unwrap(NativeQuery.class)
+                    .addSynchronizedEntityClass(OrderSummary.class) // 다른 엔티티의 쿼리 캐시는 무효화하지 않는다
+                    .executeUpdate();
+        });
+        log.info("order_summary 재구성: rows={}, {}ms", rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
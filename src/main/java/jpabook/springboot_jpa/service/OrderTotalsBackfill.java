@@ -0,0 +1,73 @@
+package jpabook.springboot_jpa.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * orders.total_price, item_count 백필 (컬럼 추가 전에 만들어진 주문)
+ * - jpashop.backfill.order-totals=true 일 때만 시작 시 한번 실행한다
+ * - 값이 비어 있는 주문을 id 순으로 batchSize 개씩 잘라서, 배치마다 별도 트랜잭션의 update 한 번으로 채운다
+ *   (긴 트랜잭션이나 전체 테이블 잠금 없이 운영 중에도 돌릴 수 있고, 중간에 멈춰도 다시 실행하면 이어서 처리된다)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.backfill.order-totals", havingValue = "true")
+public class OrderTotalsBackfill implements ApplicationRunner {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public OrderTotalsBackfill(EntityManager em,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${jpashop.backfill.batch-size:1000}") int batchSize) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        long lastId = 0;
+        long updated = 0;
+        while (true) {
+            long after = lastId;
+            List<Long> ids = transactionTemplate.execute(status -> {
+                List<Long> batch = em.createQuery(
+                                "select o.id from Order o" +
+                                        " where (o.totalPrice is null or o.itemCount is null) and o.id > :lastId" +
+                                        " order by o.id", Long.class)
+                        .setParameter("lastId", after)
+                        .setMaxResults(batchSize)
+                        .getResultList();
+                if (!batch.isEmpty()) {
+                    em.createQuery("update Order o set" +
+                                    " o.totalPrice = (select coalesce(sum(oi.orderPrice * oi.count), 0) from OrderItem oi where oi.order = o)," +
+                                    " o.itemCount = (select count(oi) from OrderItem oi where oi.order = o)" +
+                                    " where o.id in :ids")
+                            .setParameter("ids", batch)
+                            .executeUpdate();
+                }
+                return batch;
+            });
+
+            if (ids.isEmpty()) {
+                break;
+            }
+            updated += ids.size();
+            lastId = ids.get(ids.size() - 1);
+            log.info("주문 총액 백필 진행: updated={}, lastId={}", updated, lastId);
+        }
+        log.info("주문 총액 백필 완료: updated={}, {}ms", updated, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,52 @@
+package jpabook.springboot_jpa.service;
+
+import jpabook.springboot_jpa.domain.item.ItemType;
+import jpabook.springboot_jpa.repository.report.SalesGroupBy;
+import jpabook.springboot_jpa.repository.report.SalesReportRepository;
+import jpabook.springboot_jpa.repository.report.SalesRowDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class SalesReportService {
+
+    // dtype -> 상품 종류 이름 (B -> Book)
+    private static final Map<String, String> ITEM_TYPES = Stream.of(ItemType.values())
+            .collect(Collectors.toMap(ItemType::getDtype, ItemType::getLabel));
+
+    private final SalesReportRepository salesReportRepository;
+
+    /**
+     * 매출 리포트
+     * - 기본은 일별 롤업 테이블에서 집계한다 (최근 주문은 롤업 갱신 주기만큼 늦게 반영된다)
+     * - live 면 order_item 원본을 바로 GROUP BY 한다 (짧은 기간, 정합성 확인용)
+     * - 상품별은 매출이 큰 순, 나머지는 key 순으로 돌려준다
+     */
+    public List<SalesRowDto> sales(SalesGroupBy groupBy, LocalDate from, LocalDate to, boolean live) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("시작일이 종료일보다 늦습니다. from=" + from + ", to=" + to);
+        }
+
+        List<SalesRowDto> rows = live
+                ? salesReportRepository.findLive(groupBy, from, to)
+                : salesReportRepository.findFromRollup(groupBy, from, to);
+
+        if (groupBy == SalesGroupBy.TYPE) {
+            rows.forEach(row -> row.setLabel(ITEM_TYPES.getOrDefault(row.getKey(), row.getKey())));
+        }
+        if (groupBy == SalesGroupBy.ITEM) {
+            rows.sort(Comparator.comparingLong(SalesRowDto::getRevenue).reversed());
+        }
+        return rows;
+    }
+}
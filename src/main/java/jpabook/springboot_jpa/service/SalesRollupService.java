@@ -0,0 +1,125 @@
+package jpabook.springboot_jpa.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.OrderStatus;
+import jpabook.springboot_jpa.domain.SalesDaily;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.query.NativeQuery;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * sales_daily 롤업 갱신
+ * - 주문 생성/취소 이벤트(커밋 후)로 바뀐 주문 id 를 모아 두고, 주기적으로 그 주문들의 주문일만 다시 집계한다
+ * - 하루치 갱신 = 그 날짜의 행 삭제 + order_item GROUP BY 결과 insert-select (한 트랜잭션)
+ * - 시작 시에는 전체를 한번에 다시 만든다 (이벤트 없이 적재된 데이터 포함)
+ */
+@Slf4j
+@Service
+public class SalesRollupService {
+
+    private static final int MAX_IDS_PER_REFRESH = 10_000;
+
+    private static final String INSERT_SELECT =
+            "insert into sales_daily (sales_date, item_id, item_type, revenue, units)" +
+                    " select %s, oi.item_id, i.dtype, sum(oi.order_price * oi.count), sum(oi.count)" +
+                    " from order_item oi" +
+                    " join orders o on o.order_id = oi.order_id" +
+                    " join item i on i.item_id = oi.item_id" +
+                    " where o.status = :status %s" +
+                    " group by %soi.item_id, i.dtype";
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final Queue<Long> dirtyOrderIds = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock refreshLock = new ReentrantLock(); // 전체 재구성과 일별 갱신이 겹치지 않게 한다
+
+    public SalesRollupService(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @TransactionalEventListener
+    public void onOrderChanged(OrderChangedEvent event) {
+        dirtyOrderIds.addAll(event.getOrderIds());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        refreshLock.lock();
+        try {
+            long start = System.nanoTime();
+            int rows = transactionTemplate.execute(status -> {
+                em.createQuery("delete from SalesDaily").executeUpdate();
+                return em.createNativeQuery(String.format(INSERT_SELECT, "cast(o.order_date as date)", "", "cast(o.order_date as date), "))
+                        .setParameter("status", OrderStatus.ORDER.name())
+                        .unwrap(NativeQuery.class)
+                        .addSynchronizedEntityClass(SalesDaily.class)
+                        .executeUpdate();
+            });
+            log.info("sales_daily 재구성: rows={}, {}ms", rows, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * 바뀐 주문이 있는 날짜만 다시 집계
+     */
+    @Scheduled(fixedDelayString = "${jpashop.reports.rollup-refresh-ms:60000}")
+    public void refreshDirtyDays() {
+        List<Long> orderIds = new ArrayList<>();
+        Long id;
+        while (orderIds.size() < MAX_IDS_PER_REFRESH && (id = dirtyOrderIds.poll()) != null) {
+            orderIds.add(id);
+        }
+        if (orderIds.isEmpty()) {
+            return;
+        }
+
+        refreshLock.lock();
+        try {
+            TreeSet<LocalDate> days = transactionTemplate.execute(status -> new TreeSet<>(
+                    em.createQuery("select distinct cast(o.orderDate as LocalDate) from Order o where o.id in :ids", LocalDate.class)
+                            .setParameter("ids", orderIds)
+                            .getResultList()));
+            for (LocalDate day : days) {
+                transactionTemplate.executeWithoutResult(status -> refreshDay(day));
+            }
+            log.debug("sales_daily 갱신: orders={}, days={}", orderIds.size(), days);
+        } catch (RuntimeException e) {
+            dirtyOrderIds.addAll(orderIds); // 다음 주기에 다시 시도
+            throw e;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void refreshDay(LocalDate day) {
+        em.createQuery("delete from SalesDaily s where s.salesDate = :day")
+                .setParameter("day", day)
+                .executeUpdate();
+        em.createNativeQuery(String.format(INSERT_SELECT, "cast(:day as date)",
+                        "and o.order_date >= :start and o.order_date < :end", ""))
+                .setParameter("day", day)
+                .setParameter("status", OrderStatus.ORDER.name())
+                .setParameter("start", day.atStartOfDay())
+                .setParameter("end", day.plusDays(1).atStartOfDay())
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(SalesDaily.class)
+                .executeUpdate();
+    }
+}
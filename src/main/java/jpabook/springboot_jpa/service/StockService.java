@@ -0,0 +1,384 @@
+package jpabook.springboot_jpa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jpabook.springboot_jpa.domain.Order;
+import jpabook.springboot_jpa.domain.OrderItem;
+import jpabook.springboot_jpa.domain.StockMovement;
+import jpabook.springboot_jpa.domain.StockMovementType;
+import jpabook.springboot_jpa.domain.item.Item;
+import jpabook.springboot_jpa.exception.NotEnoughStockException;
+import jpabook.springboot_jpa.repository.StockBalance;
+import jpabook.springboot_jpa.repository.StockMovementRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 재고 변경 창구 (변동 기록 + 인기 상품 메모리 카운터)
+ * - 주문, 취소, 상품 등록/수정의 재고 변경은 모두 여기를 거쳐 stock_movement 에 한 행씩 남는다 (RESERVE / RELEASE / ADJUST)
+ * - 취소는 여러 주문을 한번에 받아 상품별로 변동을 합친 뒤 상품당 update 한번으로 반영한다
+ * - 상품별 반영된 변동 합계와 item.stock_quantity 를 비교해서 대사한다 (reconcile)
+ * <p>
+ * 인기 상품 (item.hot_stock)
+ * - 주문마다 item 행을 update 하지 않고, 메모리 카운터(StripedStockCounter)에서 예약한다
+ * - 주문 트랜잭션에는 item 대신 미반영 stock_movement 행만 insert 하고, 커밋되지 않으면 카운터 예약을 되돌린다
+ * - flush-interval-ms 마다, 그리고 종료 시 미반영 변동을 상품별로 합쳐서 item 에 한번씩 반영한다
+ * - 재시작(비정상 종료 포함) 시에는 미반영 변동을 먼저 item 에 반영한 뒤 그 재고로 카운터를 만든다
+ * <p>
+ * 주의
+ * - 카운터는 인스턴스 메모리에 있으므로 인스턴스가 하나일 때만 정확하다
+ * - 인기 상품의 item.stock_quantity 는 최대 flush 주기만큼 늦게 반영된다 (정확한 남은 재고는 available)
+ * - 인기 상품 모드를 끄려면 hot_stock 을 false 로 바꾸고 재시작한다
+ */
+@Slf4j
+@Service
+public class StockService {
+
+    private final EntityManager em;
+    private final StockMovementRepository stockMovementRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int shards;
+    private final int flushBatchSize;
+    private final Counter rejectedCounter;
+    private final Counter appliedCounter;
+
+    private final Map<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public StockService(EntityManager em,
+                        StockMovementRepository stockMovementRepository,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${jpashop.stock.hot.shards:0}") int shards,
+                        @Value("${jpashop.stock.hot.flush-batch-size:10000}") int flushBatchSize) {
+        this.em = em;
+        this.stockMovementRepository = stockMovementRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shards = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        this.flushBatchSize = flushBatchSize;
+        this.rejectedCounter = Counter.builder("stock.hot.rejected").register(meterRegistry);
+        this.appliedCounter = Counter.builder("stock.hot.applied").register(meterRegistry);
+    }
+
+    public boolean isHot(Long itemId) {
+        return counters.containsKey(itemId);
+    }
+
+    /**
+     * 인기 상품의 현재 남은 재고 (item 에 아직 반영되지 않은 주문/취소 포함)
+     */
+    public long available(Long itemId) {
+        return counter(itemId).available();
+    }
+
+    /**
+     * 주문상품 생성
+     * - 인기 상품이면 카운터에서 예약하고, 아니면 기존처럼 엔티티 재고를 차감한다
+     * - 상품을 읽은 뒤에 판단해야 enable 과 겹친 주문이 버전 충돌로 걸러진다
+     * - 변동 기록은 주문 id 가 생긴 뒤 recordOrder 로 남긴다
+     */
+    public OrderItem createOrderItem(Item item, int orderPrice, int count) {
+        if (!isHot(item.getId())) {
+            return OrderItem.createOrderItem(item, orderPrice, count);
+        }
+        reserve(item.getId(), count);
+        return OrderItem.createReservedOrderItem(item, orderPrice, count);
+    }
+
+    /**
+     * 주문 변동 기록 (주문 저장 후 호출, 주문상품마다 RESERVE)
+     */
+    public void recordOrder(Order order) {
+        for (OrderItem orderItem : order.getOrderItems()) {
+            Long itemId = orderItem.getItem().getId();
+            stockMovementRepository.save(StockMovement.create(
+                    itemId, StockMovementType.RESERVE, -orderItem.getCount(), order.getId(), !isHot(itemId)));
+        }
+    }
+
+    /**
+     * 주문 취소 (여러 주문)
+     * - 주문 상태를 바꾸면서 주문상품별 RELEASE 를 남기고, 재고는 상품별로 합쳐서 반영한다
+     * - 일반 상품은 IN 쿼리 한번으로 읽어 상품당 update 한번, 인기 상품은 커밋 후 카운터에 더하고 item 은 flush 때 반영된다
+     * - 취소할 수 없는 주문이 섞여 있으면 Order.cancel 의 예외로 전체가 롤백되므로, 걸러서 넘겨야 한다
+     */
+    public void cancel(List<Order> orders) {
+        requireTransaction();
+        Map<Long, Integer> deltas = new TreeMap<>(); // 상품 id 순으로 갱신해서 락 순서를 고정한다
+        for (Order order : orders) {
+            order.cancel(orderItem -> {
+                Long itemId = orderItem.getItem().getId();
+                deltas.merge(itemId, orderItem.getCount(), Integer::sum);
+                stockMovementRepository.save(StockMovement.create(
+                        itemId, StockMovementType.RELEASE, orderItem.getCount(), order.getId(), !isHot(itemId)));
+            });
+        }
+
+        List<Long> regularIds = deltas.keySet().stream()
+                .filter(itemId -> !isHot(itemId))
+                .collect(Collectors.toList());
+        if (!regularIds.isEmpty()) {
+            em.createQuery("select i from Item i where i.id in :ids order by i.id", Item.class)
+                    .setParameter("ids", regularIds)
+                    .getResultList()
+                    .forEach(item -> item.addStock(deltas.get(item.getId())));
+        }
+        deltas.forEach((itemId, delta) -> {
+            if (isHot(itemId)) {
+                releaseOnCommit(itemId, delta);
+            }
+        });
+    }
+
+    /**
+     * 상품 등록 시 시작 재고 기록 (상품 저장 후 호출)
+     */
+    public void recordOpening(Item item) {
+        stockMovementRepository.save(StockMovement.create(
+                item.getId(), StockMovementType.ADJUST, item.getStockQuantity(), null, true));
+    }
+
+    /**
+     * 재고 수량 직접 수정 (ADJUST)
+     * - 인기 상품은 item 행의 재고가 늦게 반영되므로 카운터 기준 차이만큼 변동으로 남긴다
+     */
+    public void adjust(Item item, int stockQuantity) {
+        requireTransaction();
+        Long itemId = item.getId();
+        boolean hot = isHot(itemId);
+        int delta = stockQuantity - (hot ? (int) available(itemId) : item.getStockQuantity());
+        if (delta == 0) {
+            return;
+        }
+
+        if (!hot) {
+            item.setStockQuantity(stockQuantity);
+        } else if (delta < 0) {
+            reserve(itemId, -delta);
+        } else {
+            releaseOnCommit(itemId, delta);
+        }
+        stockMovementRepository.save(StockMovement.create(itemId, StockMovementType.ADJUST, delta, null, !hot));
+    }
+
+    /**
+     * 상품별 변동 이력
+     */
+    @Transactional(readOnly = true)
+    public List<StockMovement> findMovements(Long itemId, Long afterId, int limit) {
+        return stockMovementRepository.findByItemId(itemId, afterId, limit);
+    }
+
+    /**
+     * 재고 대사: 변동 기록 합계, 인기 상품 카운터와 맞지 않는 상품만 돌려준다
+     * - 주문이 처리되는 중에는 커밋 전 예약이 카운터에만 있어서 잠깐 어긋나 보일 수 있다
+     * - 메모리 카운터와 비교하므로 복제본이 아닌 primary 에서 읽는다 (readOnly 를 붙이지 않는다)
+     */
+    @Transactional
+    public List<StockBalance> reconcile() {
+        List<StockBalance> balances = stockMovementRepository.findBalances();
+        for (StockBalance balance : balances) {
+            StripedStockCounter counter = counters.get(balance.getItemId());
+            if (counter != null) {
+                balance.setAvailable(counter.available());
+            }
+        }
+        return balances.stream()
+                .filter(balance -> !balance.isMatched())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 인기 상품 모드 켜기
+     * - item 행을 잠그고 버전을 올린 상태에서 카운터를 만든다
+     * - 이미 상품을 읽어 둔 일반 경로 주문은 버전 충돌로 실패하고, 재시도하면 카운터 경로로 들어온다
+     */
+    public void enable(Long itemId) {
+        if (isHot(itemId)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Item item = em.find(Item.class, itemId, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+                if (item == null) {
+                    throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+                }
+                item.setHotStock(true);
+                counters.putIfAbsent(itemId, new StripedStockCounter(item.getStockQuantity(), shards));
+            });
+        } catch (RuntimeException e) {
+            counters.remove(itemId);
+            throw e;
+        }
+        log.info("hot stock enabled: itemId={}, available={}", itemId, available(itemId));
+    }
+
+    /**
+     * 시작 시 복구
+     * - 지난 실행에서 커밋됐지만 item 에 반영하지 못한 변동을 먼저 반영하고, 인기 상품 카운터를 만든다
+     * - 변동 기록이 없는 상품(journal 도입 전 상품)은 현재 재고를 시작 재고(ADJUST)로 남긴다
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        flushLock.lock();
+        try {
+            int applied = drain();
+            int opened = recordMissingOpenings();
+            List<Long> itemIds = transactionTemplate.execute(status -> em.createQuery(
+                            "select i.id from Item i where i.hotStock = true order by i.id", Long.class)
+                    .getResultList());
+            itemIds.forEach(this::enable);
+            log.info("stock recovered: movements={}, openings={}, hotItems={}", applied, opened, itemIds.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 미반영 변동을 item 에 반영 (write-behind)
+     * - 충돌 등으로 실패하면 변동은 미반영으로 남아 있으므로 다음 주기에 다시 반영된다
+     */
+    @Scheduled(fixedDelayString = "${jpashop.stock.hot.flush-interval-ms:200}")
+    public void flush() {
+        if (counters.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.warn("인기 상품 재고 반영 실패, 다음 주기에 다시 반영", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private int drain() {
+        int total = 0;
+        int applied;
+        do {
+            applied = transactionTemplate.execute(status -> applyBatch());
+            total += applied;
+        } while (applied == flushBatchSize);
+        return total;
+    }
+
+    /**
+     * 미반영 변동 한 묶음을 상품별로 합쳐서 item 에 상품당 update 한번으로 반영하고, 같은 트랜잭션에서 반영 표시한다
+     */
+    private int applyBatch() {
+        List<StockMovement> movements = stockMovementRepository.findUnapplied(flushBatchSize);
+        if (movements.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = movements.stream().map(StockMovement::getId).collect(Collectors.toList());
+        if (stockMovementRepository.markApplied(ids) != ids.size()) {
+            throw new IllegalStateException("다른 곳에서 이미 반영한 재고 변동이 있습니다");
+        }
+
+        Map<Long, Integer> deltas = new TreeMap<>(); // 상품 id 순으로 갱신해서 락 순서를 고정한다
+        for (StockMovement movement : movements) {
+            deltas.merge(movement.getItemId(), movement.getQuantity(), Integer::sum);
+        }
+        deltas.forEach((itemId, delta) -> {
+            Item item = em.find(Item.class, itemId);
+            if (delta > 0) {
+                item.addStock(delta);
+            } else if (delta < 0) {
+                item.removeStock(-delta);
+            }
+        });
+
+        appliedCounter.increment(movements.size());
+        return movements.size();
+    }
+
+    private int recordMissingOpenings() {
+        int total = 0;
+        int recorded;
+        do {
+            recorded = transactionTemplate.execute(status -> {
+                List<Object[]> rows = stockMovementRepository.findItemsWithoutMovement(flushBatchSize);
+                for (Object[] row : rows) {
+                    stockMovementRepository.save(StockMovement.create(
+                            (Long) row[0], StockMovementType.ADJUST, (Integer) row[1], null, true));
+                }
+                return rows.size();
+            });
+            total += recorded;
+        } while (recorded == flushBatchSize);
+        return total;
+    }
+
+    /**
+     * 인기 상품 예약: 모자라면 NotEnoughStockException, 커밋되지 않으면 되돌린다
+     */
+    private void reserve(Long itemId, int quantity) {
+        requireTransaction();
+        StripedStockCounter counter = counter(itemId);
+        if (!counter.tryReserve(quantity)) {
+            rejectedCounter.increment();
+            throw new NotEnoughStockException("need more stock");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    counter.release(quantity);
+                }
+            }
+        });
+    }
+
+    /**
+     * 인기 상품 재고 추가: 커밋된 뒤에 카운터에 더한다 (롤백됐는데 그 사이 팔리면 안 되므로)
+     */
+    private void releaseOnCommit(Long itemId, int quantity) {
+        StripedStockCounter counter = counter(itemId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                counter.release(quantity);
+            }
+        });
+    }
+
+    private StripedStockCounter counter(Long itemId) {
+        StripedStockCounter counter = counters.get(itemId);
+        if (counter == null) {
+            throw new IllegalArgumentException("인기 상품이 아닙니다. itemId=" + itemId);
+        }
+        return counter;
+    }
+
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("재고 변경은 트랜잭션 안에서 호출해야 합니다");
+        }
+    }
+}
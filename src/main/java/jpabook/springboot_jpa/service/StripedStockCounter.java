@@ -0,0 +1,92 @@
+package jpabook.springboot_jpa.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 인기 상품 재고 카운터 (메모리)
+ * - 재고를 여러 칸(shard)에 나눠 담고, 스레드마다 자기 칸에서 CAS 로 꺼낸다 (모든 주문이 한 값을 두고 경쟁하지 않게)
+ * - 자기 칸이 모자라면 다른 칸에서 모자란 만큼 가져오고, 다 돌아도 모자라면 가져온 만큼 되돌리고 거절한다
+ * - 어떤 칸도 0 아래로 내려가지 않으므로 초과 판매는 없다
+ *   (다른 주문이 되돌리는 중이면 재고가 조금 남아 있어도 드물게 거절될 수 있다)
+ */
+public class StripedStockCounter {
+
+    private static final int PADDING = 8; // 칸 사이를 long 8개(64바이트) 띄워서 false sharing 을 피한다
+
+    private final AtomicLongArray cells;
+    private final int shards;
+
+    public StripedStockCounter(long initial, int shards) {
+        if (initial < 0) {
+            throw new IllegalArgumentException("재고는 0 이상이어야 합니다. initial=" + initial);
+        }
+        if (shards <= 0) {
+            throw new IllegalArgumentException("칸 수는 1 이상이어야 합니다. shards=" + shards);
+        }
+        this.shards = shards;
+        this.cells = new AtomicLongArray(shards * PADDING);
+        for (int i = 0; i < shards; i++) {
+            cells.set(i * PADDING, initial / shards + (i < initial % shards ? 1 : 0));
+        }
+    }
+
+    /**
+     * quantity 만큼 예약, 남은 재고가 모자라면 아무것도 바꾸지 않고 false
+     */
+    public boolean tryReserve(long quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("수량은 1 이상이어야 합니다. quantity=" + quantity);
+        }
+        int home = home();
+        long taken = 0;
+        for (int i = 0; i < shards && taken < quantity; i++) {
+            taken += take((home + i) % shards, quantity - taken);
+        }
+        if (taken == quantity) {
+            return true;
+        }
+        if (taken > 0) {
+            cells.addAndGet(home * PADDING, taken);
+        }
+        return false;
+    }
+
+    /**
+     * 예약 취소, 재고 추가
+     */
+    public void release(long quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("수량은 1 이상이어야 합니다. quantity=" + quantity);
+        }
+        cells.addAndGet(home() * PADDING, quantity);
+    }
+
+    /**
+     * 남은 재고 (칸을 차례로 읽으므로 동시 변경 중에는 근사값)
+     */
+    public long available() {
+        long sum = 0;
+        for (int i = 0; i < shards; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    private long take(int shard, long wanted) {
+        int index = shard * PADDING;
+        while (true) {
+            long current = cells.get(index);
+            if (current <= 0) {
+                return 0;
+            }
+            long taking = Math.min(current, wanted);
+            if (cells.compareAndSet(index, current, current - taking)) {
+                return taking;
+            }
+        }
+    }
+
+    private int home() {
+        return Math.floorMod(Thread.currentThread().hashCode(), shards);
+    }
+}
@@ -0,0 +1,83 @@
+package jpabook.springboot_jpa.api;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class KeysetPagingTest {
+
+    private static final List<String> URIS = Arrays.asList(
+            "/api/v3.2/orders",
+            "/api/v5/simple-orders",
+            "/api/items",
+            "/api/items/filter",
+            "/api/items/1/stock-movements");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void limit_범위_밖이면_400() throws Exception {
+        for (String limit : Arrays.asList("0", "-1", "1001", String.valueOf(Integer.MAX_VALUE))) {
+            for (String uri : URIS) {
+                mockMvc.perform(get(uri).param("limit", limit))
+                        .andExpect(status().isBadRequest());
+            }
+        }
+    }
+
+    @Test
+    public void limit_범위_안이면_200() throws Exception {
+        for (String limit : Arrays.asList("1", "1000")) {
+            for (String uri : URIS) {
+                mockMvc.perform(get(uri).param("limit", limit))
+                        .andExpect(status().isOk());
+            }
+        }
+    }
+
+    @Test
+    public void offset_페이징도_범위_밖이면_400() throws Exception {
+        for (String uri : Arrays.asList("/api/v6.1/orders", "/api/orders")) {
+            mockMvc.perform(get(uri).param("offset", "-1")).andExpect(status().isBadRequest());
+            for (String limit : Arrays.asList("0", "-1", "1001")) {
+                mockMvc.perform(get(uri).param("limit", limit)).andExpect(status().isBadRequest());
+            }
+            mockMvc.perform(get(uri).param("offset", "0").param("limit", "1000")).andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    public void 깨진_커서는_400() throws Exception {
+        for (String after : Arrays.asList("not-a-cursor", "!!!", "MjAyNC0wMS0wMQ")) { // 마지막은 구분자 없는 base64
+            mockMvc.perform(get("/api/v3.2/orders").param("after", after))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    public void limit_만큼_자르고_다음_커서를_만든다() throws Exception {
+        KeysetSlice<Long> slice = KeysetSlice.of(Arrays.asList(1L, 2L, 3L), 2, String::valueOf);
+        assertEquals(Arrays.asList(1L, 2L), slice.getRows());
+        assertEquals("2", slice.getNextCursor());
+
+        List<Long> last = Arrays.asList(4L, 5L);
+        KeysetSlice<Long> lastSlice = KeysetSlice.of(last, 2, String::valueOf);
+        assertEquals(last, lastSlice.getRows());
+        assertNull(lastSlice.getNextCursor());
+    }
+}
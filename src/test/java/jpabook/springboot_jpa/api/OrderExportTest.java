@@ -0,0 +1,116 @@
+package jpabook.springboot_jpa.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Address;
+import jpabook.springboot_jpa.domain.Delivery;
+import jpabook.springboot_jpa.domain.Member;
+import jpabook.springboot_jpa.domain.Order;
+import jpabook.springboot_jpa.repository.order.query.OrderQueryRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class OrderExportTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ObjectMapper objectMapper;
+    @SpyBean
+    OrderQueryRepository orderQueryRepository;
+
+    TransactionTemplate tx;
+    Long memberId;
+    Long emptyOrderId;
+
+    @Before
+    public void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Member member = new Member();
+            member.setName("내보내기회원");
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            Order order = Order.createOrder(member, delivery); // 주문상품 없는 주문
+            em.persist(order);
+
+            memberId = member.getId();
+            emptyOrderId = order.getId();
+        });
+    }
+
+    @After
+    public void tearDown() {
+        tx.executeWithoutResult(status -> {
+            em.remove(em.find(Order.class, emptyOrderId));
+            em.remove(em.find(Member.class, memberId));
+        });
+    }
+
+    @Test
+    public void 주문마다_한_줄씩_쓰고_스트림을_닫는다() throws Exception {
+        // given
+        AtomicBoolean closed = new AtomicBoolean();
+        doAnswer(invocation -> ((Stream<?>) invocation.callRealMethod()).onClose(() -> closed.set(true)))
+                .when(orderQueryRepository).streamAllByDto_flat();
+        Long orderCount = tx.execute(status -> em.createQuery("select count(o) from Order o", Long.class).getSingleResult());
+        Long orderItemCount = tx.execute(status -> em.createQuery("select count(oi) from OrderItem oi", Long.class).getSingleResult());
+
+        // when
+        MvcResult result = mockMvc.perform(get("/api/orders/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        // then
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("주문 1건당 한 줄", orderCount.longValue(), lines.length);
+
+        Map<Long, JsonNode> byOrderId = new HashMap<>();
+        long items = 0;
+        for (String line : lines) {
+            JsonNode order = objectMapper.readTree(line);
+            assertNull("같은 주문이 두 줄로 나뉘면 안 된다", byOrderId.put(order.get("orderId").asLong(), order));
+            items += order.get("orderItems").size();
+        }
+        assertEquals(orderItemCount.longValue(), items);
+        assertEquals("주문상품이 없는 주문도 빈 목록으로 나온다", 0, byOrderId.get(emptyOrderId).get("orderItems").size());
+        assertTrue("다 쓴 뒤 스트림(커서)을 닫아야 한다", closed.get());
+    }
+
+}
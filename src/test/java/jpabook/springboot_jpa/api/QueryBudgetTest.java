@@ -0,0 +1,111 @@
+package jpabook.springboot_jpa.api;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.exception.QueryBudgetExceededException;
+import jpabook.springboot_jpa.monitoring.QueryBudget;
+import jpabook.springboot_jpa.monitoring.QueryStatsInterceptor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class QueryBudgetTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void DTO_직접조회는_쿼리_1번() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v4/simple-orders"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("1", result.getResponse().getHeader(QueryStatsInterceptor.HEADER_COUNT));
+    }
+
+    @Test
+    public void 지연로딩은_쿼리가_더_많이_나간다() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v2/simple-orders"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        int count = Integer.parseInt(result.getResponse().getHeader(QueryStatsInterceptor.HEADER_COUNT));
+        assertTrue("order 1번 + member, delivery 지연 로딩", count > 1);
+    }
+
+    @Test
+    public void 직렬화_중_지연로딩도_예산에_포함된다() throws Exception {
+        try {
+            mockMvc.perform(get("/test/lazy-body"));
+            fail("본문 직렬화 중 실행된 SQL 로 예산을 넘었으므로 실패해야 한다");
+        } catch (QueryBudgetExceededException e) {
+            assertTrue(e.getMessage().contains("budget=0, actual=1"));
+        }
+
+        double max = meterRegistry.get("http.server.requests.sql.count")
+                .tag("uri", "/test/lazy-body")
+                .summary()
+                .max();
+        assertEquals("메트릭도 직렬화 중 SQL 을 센다", 1.0, max, 0.0);
+    }
+
+    /**
+     * 핸들러에서는 SQL 을 실행하지 않고, Jackson 이 getter 를 호출할 때 SQL 이 실행되는 응답
+     */
+    @TestConfiguration
+    static class LazyBodyConfig {
+
+        @Bean
+        LazyBodyController lazyBodyController(EntityManager em) {
+            return new LazyBodyController(em);
+        }
+    }
+
+    @RestController
+    static class LazyBodyController {
+
+        private final EntityManager em;
+
+        LazyBodyController(EntityManager em) {
+            this.em = em;
+        }
+
+        @QueryBudget(0)
+        @GetMapping("/test/lazy-body")
+        public LazyBody lazyBody() {
+            return new LazyBody(em);
+        }
+    }
+
+    static class LazyBody {
+
+        private final EntityManager em;
+
+        LazyBody(EntityManager em) {
+            this.em = em;
+        }
+
+        public Long getMemberCount() {
+            return em.createQuery("select count(m) from Member m", Long.class).getSingleResult();
+        }
+    }
+
+}
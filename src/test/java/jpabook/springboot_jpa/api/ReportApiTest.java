@@ -0,0 +1,36 @@
+package jpabook.springboot_jpa.api;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ReportApiTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void 시작일이_종료일보다_늦으면_400() throws Exception {
+        for (String live : new String[]{"false", "true"}) {
+            mockMvc.perform(get("/api/reports/sales").param("from", "2024-02-01").param("to", "2024-01-31").param("live", live))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    public void 같은_날짜는_200() throws Exception {
+        mockMvc.perform(get("/api/reports/sales").param("from", "2024-01-31").param("to", "2024-01-31"))
+                .andExpect(status().isOk());
+    }
+
+}
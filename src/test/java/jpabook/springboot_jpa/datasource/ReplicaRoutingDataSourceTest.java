@@ -0,0 +1,121 @@
+package jpabook.springboot_jpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 내장 H2 두 개(프라이머리, 레플리카)로 라우팅 확인
+ * - 각 DB 의 node 테이블에 자기 이름을 넣어두고, 어느 DB 에서 읽었는지 본다
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ReplicaRoutingDataSource routingDataSource;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate writeTx;
+    TransactionTemplate readTx;
+
+    @Before
+    public void setUp() {
+        HikariDataSource primary = h2("primary", "routing_primary");
+        HikariDataSource replica = h2("replica-1", "routing_replica");
+        init(primary, "primary");
+        init(replica, "replica");
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica),
+                Duration.ofSeconds(5), "select seconds from replica_lag", meterRegistry);
+        routingDataSource.checkReplicas();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        writeTx = new TransactionTemplate(transactionManager);
+        readTx = new TransactionTemplate(transactionManager);
+        readTx.setReadOnly(true);
+    }
+
+    @After
+    public void tearDown() {
+        routingDataSource.close();
+    }
+
+    @Test
+    public void 읽기전용_트랜잭션은_레플리카_쓰기는_프라이머리로_간다() throws Exception {
+        assertEquals("replica", readTx.execute(status -> currentNode()));
+        assertEquals("primary", writeTx.execute(status -> currentNode()));
+        assertEquals("트랜잭션 밖은 프라이머리", "primary", currentNode());
+        assertEquals(1.0, meterRegistry.get("datasource.route").tag("route", "replica").counter().count(), 0);
+    }
+
+    @Test
+    public void 복제_지연이_허용치를_넘으면_프라이머리로_대체한다() throws Exception {
+        // given
+        new JdbcTemplate(replicaPool()).update("update replica_lag set seconds = 30");
+
+        // when
+        routingDataSource.checkReplicas();
+
+        // then
+        assertEquals("primary", readTx.execute(status -> currentNode()));
+        assertEquals(1.0, meterRegistry.get("datasource.route").tag("route", "fallback").counter().count(), 0);
+        assertEquals(0.0, meterRegistry.get("datasource.replica.available").tag("pool", "replica-1").gauge().value(), 0);
+
+        // 지연이 줄면 다시 레플리카로
+        new JdbcTemplate(replicaPool()).update("update replica_lag set seconds = 0");
+        routingDataSource.checkReplicas();
+        assertEquals("replica", readTx.execute(status -> currentNode()));
+    }
+
+    @Test
+    public void 레플리카에_연결할_수_없으면_프라이머리로_대체한다() throws Exception {
+        // given
+        replicaPool().close();
+
+        // when
+        routingDataSource.checkReplicas();
+
+        // then
+        assertEquals("primary", readTx.execute(status -> currentNode()));
+        assertTrue(Double.isNaN(meterRegistry.get("datasource.replica.lag").tag("pool", "replica-1").gauge().value()));
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private HikariDataSource replicaPool() {
+        return (HikariDataSource) routingDataSource.getResolvedDataSources().get("replica-1");
+    }
+
+    private static HikariDataSource h2(String poolName, String database) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(poolName);
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+
+    private static void init(HikariDataSource dataSource, String name) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("drop table if exists node");
+        jdbc.execute("drop table if exists replica_lag");
+        jdbc.execute("create table node (name varchar(20))");
+        jdbc.execute("create table replica_lag (seconds double)");
+        jdbc.update("insert into node values (?)", name);
+        jdbc.update("insert into replica_lag values (0)");
+    }
+}
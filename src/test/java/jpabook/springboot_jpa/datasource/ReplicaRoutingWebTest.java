@@ -0,0 +1,85 @@
+package jpabook.springboot_jpa.datasource;
+
+import jakarta.persistence.EntityManager;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * replica 프로파일로 띄워서 한 요청 안의 트랜잭션마다 라우팅되는지 확인
+ * - 레플리카와 프라이머리는 서로 다른 풀이므로, 읽기 전용 트랜잭션과 쓰기 트랜잭션이 같은 H2 세션(커넥션)을 쓰면
+ *   쓰기가 레플리카 커넥션으로 나간 것이다 (OSIV 가 요청 동안 첫 커넥션을 잡고 있을 때)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("replica")
+public class ReplicaRoutingWebTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void 읽기전용_트랜잭션_다음_쓰기는_다른_커넥션을_쓴다() throws Exception {
+        MvcResult result = mockMvc.perform(post("/test/read-then-write"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("쓰기 트랜잭션이 레플리카 커넥션을 그대로 쓰면 안 된다", "false", result.getResponse().getContentAsString());
+    }
+
+    @TestConfiguration
+    static class ReadThenWriteConfig {
+
+        @Bean
+        ReadThenWriteController readThenWriteController(EntityManager em, PlatformTransactionManager transactionManager) {
+            return new ReadThenWriteController(em, transactionManager);
+        }
+    }
+
+    @RestController
+    static class ReadThenWriteController {
+
+        private final EntityManager em;
+        private final TransactionTemplate readTx;
+        private final TransactionTemplate writeTx;
+
+        ReadThenWriteController(EntityManager em, PlatformTransactionManager transactionManager) {
+            this.em = em;
+            this.readTx = new TransactionTemplate(transactionManager);
+            this.readTx.setReadOnly(true);
+            this.writeTx = new TransactionTemplate(transactionManager);
+        }
+
+        /**
+         * @return 두 트랜잭션이 같은 커넥션을 썼는지
+         */
+        @PostMapping("/test/read-then-write")
+        public boolean readThenWrite() {
+            Object readSession = readTx.execute(status -> sessionId());
+            Object writeSession = writeTx.execute(status -> sessionId());
+            return readSession.equals(writeSession);
+        }
+
+        private Object sessionId() {
+            return em.createNativeQuery("select session_id()").getSingleResult();
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package jpabook.springboot_jpa.repository.order.query;
+
+import jpabook.springboot_jpa.domain.Address;
+import jpabook.springboot_jpa.domain.OrderStatus;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OrderFlatGrouperTest {
+
+    @Test
+    public void 주문번호가_바뀌는_지점에서_묶는다() throws Exception {
+        // given
+        List<OrderFlatDto> flats = List.of(
+                flat(3L, "JPA1 BOOK"),
+                flat(3L, "JPA2 BOOK"),
+                flat(1L, "SPRING1 BOOK"),
+                flat(2L, "SPRING2 BOOK"),
+                flat(2L, "SPRING3 BOOK"));
+
+        // when
+        List<OrderQueryDto> result = new ArrayList<>();
+        OrderFlatGrouper.forEachOrder(flats.iterator(), result::add);
+
+        // then
+        assertEquals("주문 수만큼 묶여야 한다", 3, result.size());
+        assertEquals("입력 순서가 유지되어야 한다", Long.valueOf(3L), result.get(0).getOrderId());
+        assertEquals(Long.valueOf(1L), result.get(1).getOrderId());
+        assertEquals(Long.valueOf(2L), result.get(2).getOrderId());
+        assertEquals(2, result.get(0).getOrderItems().size());
+        assertEquals("SPRING3 BOOK", result.get(2).getOrderItems().get(1).getItemName());
+    }
+
+    @Test
+    public void 빈_입력은_아무것도_내보내지_않는다() throws Exception {
+        List<OrderQueryDto> result = new ArrayList<>();
+        OrderFlatGrouper.forEachOrder(new ArrayList<OrderFlatDto>().iterator(), result::add);
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void 주문상품이_없는_주문은_빈_목록으로_내보낸다() throws Exception {
+        List<OrderFlatDto> flats = List.of(
+                flat(1L, "JPA1 BOOK"),
+                new OrderFlatDto(2L, "userA", LocalDateTime.now(), OrderStatus.ORDER,
+                        new Address("서울", "1", "1111"), null, null, null),
+                flat(3L, "JPA2 BOOK"));
+
+        List<OrderQueryDto> result = new ArrayList<>();
+        OrderFlatGrouper.forEachOrder(flats.iterator(), result::add);
+
+        assertEquals(3, result.size());
+        assertTrue(result.get(1).getOrderItems().isEmpty());
+        assertEquals(1, result.get(2).getOrderItems().size());
+    }
+
+    private OrderFlatDto flat(Long orderId, String itemName) {
+        return new OrderFlatDto(orderId, "userA", LocalDateTime.now(), OrderStatus.ORDER,
+                new Address("서울", "1", "1111"), itemName, 10000, 1);
+    }
+
+}
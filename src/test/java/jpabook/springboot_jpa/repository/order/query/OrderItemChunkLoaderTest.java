@@ -0,0 +1,46 @@
+package jpabook.springboot_jpa.repository.order.query;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OrderItemChunkLoaderTest {
+
+    OrderItemChunkLoader loader = new OrderItemChunkLoader(null, 256);
+
+    @Test
+    public void 고정_크기로_나누고_마지막_조각은_2의_거듭제곱으로_채운다() throws Exception {
+        // given
+        List<Long> orderIds = ids(600);
+
+        // when
+        List<List<Long>> chunks = loader.split(orderIds);
+
+        // then
+        assertEquals(3, chunks.size());
+        assertEquals(256, chunks.get(0).size());
+        assertEquals(256, chunks.get(1).size());
+        assertEquals("남은 88개는 128개로 채운다", 128, chunks.get(2).size());
+        assertEquals("마지막 id 로 채운다", Long.valueOf(600L), chunks.get(2).get(127));
+    }
+
+    @Test
+    public void 한_조각이면_그대로_채운다() throws Exception {
+        List<List<Long>> chunks = loader.split(ids(3));
+
+        assertEquals(1, chunks.size());
+        assertEquals(4, chunks.get(0).size());
+    }
+
+    private List<Long> ids(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+
+}
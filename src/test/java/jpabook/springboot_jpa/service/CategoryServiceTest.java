@@ -0,0 +1,155 @@
+package jpabook.springboot_jpa.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Category;
+import jpabook.springboot_jpa.domain.item.Album;
+import jpabook.springboot_jpa.domain.item.Book;
+import jpabook.springboot_jpa.domain.item.Item;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class CategoryServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    CategoryService categoryService;
+    @Autowired
+    CategoryTreeHolder categoryTreeHolder;
+
+    @Test
+    public void 하위_카테고리_전체를_가까운_단계부터_조회한다() throws Exception {
+        // given
+        Long books = categoryService.create(null, "도서");
+        Long it = categoryService.create(books, "IT");
+        Long novel = categoryService.create(books, "소설");
+        Long jpa = categoryService.create(it, "JPA");
+        categoryService.create(null, "음반");
+        em.flush();
+        em.clear();
+
+        // when
+        List<Long> descendants = ids(categoryService.findDescendants(books));
+
+        // then
+        assertEquals(List.of(it, novel, jpa), descendants);
+        assertEquals(List.of(jpa), ids(categoryService.findDescendants(it)));
+        assertTrue(categoryService.findDescendants(jpa).isEmpty());
+    }
+
+    @Test
+    public void 하위_트리의_상품을_한번에_조회한다() throws Exception {
+        // given
+        Long books = categoryService.create(null, "도서");
+        Long it = categoryService.create(books, "IT");
+        Long jpa = categoryService.create(it, "JPA");
+        Long music = categoryService.create(null, "음반");
+
+        Item jpaBook = createItem(new Book(), "자바 ORM 표준 JPA");
+        Item itBook = createItem(new Book(), "클린 코드");
+        Item album = createItem(new Album(), "앨범");
+        categoryService.addItem(jpa, jpaBook.getId());
+        categoryService.addItem(it, jpaBook.getId()); // 여러 카테고리에 걸친 상품
+        categoryService.addItem(it, itBook.getId());
+        categoryService.addItem(music, album.getId());
+        em.flush();
+        em.clear();
+
+        // when
+        List<Item> items = categoryService.findItemsInSubtree(books);
+
+        // then
+        assertEquals(List.of(jpaBook.getId(), itBook.getId()),
+                items.stream().map(Item::getId).collect(Collectors.toList()));
+        assertEquals(1, categoryService.findItemsInSubtree(jpa).size());
+    }
+
+    @Test
+    public void 먼저_만든_하위_트리를_붙여도_경로가_이어진다() throws Exception {
+        // given
+        Category root = category("도서");
+        Category it = category("IT");
+        Category jpa = category("JPA");
+        it.addChildCategory(jpa);
+
+        // when
+        root.addChildCategory(it);
+        em.persist(root);
+        em.persist(it);
+        em.persist(jpa);
+        em.flush();
+        em.clear();
+
+        // then
+        assertEquals(List.of(it.getId(), jpa.getId()), ids(categoryService.findDescendants(root.getId())));
+        Integer depth = em.createQuery("select cc.depth from CategoryClosure cc" +
+                        " where cc.ancestor.id = :ancestor and cc.descendant.id = :descendant", Integer.class)
+                .setParameter("ancestor", root.getId())
+                .setParameter("descendant", jpa.getId())
+                .getSingleResult();
+        assertEquals(2, depth.intValue());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void 상위가_있는_카테고리는_다른_곳에_붙일_수_없다() throws Exception {
+        Category a = category("A");
+        Category b = category("B");
+        Category child = category("C");
+        a.addChildCategory(child);
+
+        b.addChildCategory(child);
+
+        fail("이동은 지원하지 않는다");
+    }
+
+    @Test
+    public void 트리_스냅샷은_쿼리_한번으로_전체를_만든다() throws Exception {
+        // given
+        Long books = categoryService.create(null, "도서");
+        Long it = categoryService.create(books, "IT");
+        Long jpa = categoryService.create(it, "JPA");
+        em.flush();
+
+        // when
+        categoryTreeHolder.rebuild();
+        CategoryTree tree = categoryService.findTree();
+
+        // then
+        CategoryTree.Node node = tree.find(jpa);
+        assertEquals("JPA", node.getName());
+        assertEquals(it, node.getParentId());
+        assertEquals(2, node.getDepth());
+        assertTrue(tree.getRoots().stream().anyMatch(root -> root.getId().equals(books)));
+        assertEquals(it, tree.find(books).getChildren().get(0).getId());
+    }
+
+    private static List<Long> ids(List<Category> categories) {
+        return categories.stream().map(Category::getId).collect(Collectors.toList());
+    }
+
+    private static Category category(String name) {
+        Category category = new Category();
+        category.setName(name);
+        return category;
+    }
+
+    private Item createItem(Item item, String name) {
+        item.setName(name);
+        item.setPrice(10000);
+        item.setStockQuantity(10);
+        em.persist(item);
+        return item;
+    }
+}
@@ -0,0 +1,148 @@
+package jpabook.springboot_jpa.service;
+
+import jpabook.springboot_jpa.domain.item.Album;
+import jpabook.springboot_jpa.domain.item.Book;
+import jpabook.springboot_jpa.domain.item.Item;
+import jpabook.springboot_jpa.domain.item.ItemType;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 커밋 후 이벤트로 인덱스가 갱신되는지 확인하므로 트랜잭션 없이 실행한다
+ * - 다른 테스트 데이터와 섞이지 않도록 매번 고유한 저자/가수 이름으로 범위를 좁힌다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ItemAttributeIndexTest {
+
+    @Autowired
+    ItemAttributeIndex itemAttributeIndex;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    CategoryService categoryService;
+
+    @Test
+    public void 상품_저장과_재고_변경이_커밋되면_인덱스에_반영된다() throws Exception {
+        // given
+        String author = unique("저자");
+        Item book = book(author, 10);
+
+        // when
+        itemService.saveItem(book);
+
+        // then
+        assertEquals(List.of(book.getId()), ids(filter(author, true)));
+
+        // 재고 0 으로 수정
+        itemService.updateItem(book.getId(), book.getName(), book.getPrice(), 0);
+        assertTrue(ids(filter(author, true)).isEmpty());
+        assertEquals(List.of(book.getId()), ids(filter(author, false)));
+    }
+
+    @Test
+    public void 여러_조건을_교집합하고_페이지만큼만_읽는다() throws Exception {
+        // given
+        String author = unique("저자");
+        Item first = book(author, 10);
+        Item soldOut = book(author, 0);
+        Item second = book(author, 5);
+        Item third = book(author, 1);
+        for (Item item : List.of(first, soldOut, second, third)) {
+            itemService.saveItem(item);
+        }
+        ItemFilter filter = new ItemFilter();
+        filter.setAuthor(" " + author.toUpperCase() + " "); // 공백, 대소문자 무시
+        filter.setInStock(true);
+
+        // when
+        ItemFilterPage page1 = itemService.filter(filter, null, 2);
+        ItemFilterPage page2 = itemService.filter(filter, page1.getItems().get(1).getId(), 2);
+
+        // then
+        assertEquals(3, page1.getTotal());
+        assertEquals(List.of(first.getId(), second.getId()), page1.getItems().stream().map(Item::getId).collect(Collectors.toList()));
+        assertEquals(List.of(third.getId()), page2.getItems().stream().map(Item::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void 카테고리_하위_트리와_종류별_개수() throws Exception {
+        // given
+        Long root = categoryService.create(null, unique("카테고리"));
+        Long child = categoryService.create(root, "하위");
+
+        Item book = book(unique("저자"), 3);
+        Album album = new Album();
+        album.setName("앨범");
+        album.setArtist(unique("가수"));
+        album.setStockQuantity(3);
+        itemService.saveItem(book);
+        itemService.saveItem(album);
+        categoryService.addItem(child, book.getId());
+        categoryService.addItem(root, album.getId());
+
+        ItemFilter filter = new ItemFilter();
+        filter.setCategoryId(root);
+
+        // when
+        Roaring64NavigableMap ids = itemAttributeIndex.filter(filter);
+        filter.setType(ItemType.ALBUM);
+        Map<ItemType, Long> counts = itemAttributeIndex.countByType(filter);
+
+        // then
+        assertEquals(List.of(book.getId(), album.getId()), ids(ids));
+        assertEquals("종류 조건은 빼고 센다", Long.valueOf(1), counts.get(ItemType.BOOK));
+        assertEquals(Long.valueOf(1), counts.get(ItemType.ALBUM));
+        assertEquals(Long.valueOf(0), counts.get(ItemType.MOVIE));
+
+        ItemFilter byArtist = new ItemFilter();
+        byArtist.setCategoryId(child);
+        byArtist.setArtist(album.getArtist());
+        assertTrue("하위 카테고리에는 앨범이 없다", itemAttributeIndex.filter(byArtist).isEmpty());
+    }
+
+    @Test
+    public void 페이지는_after_다음_id_부터() throws Exception {
+        Roaring64NavigableMap ids = Roaring64NavigableMap.bitmapOf(3, 7, 10, 15, 20);
+
+        assertEquals(List.of(3L, 7L), ItemAttributeIndex.page(ids, null, 2));
+        assertEquals(List.of(10L, 15L), ItemAttributeIndex.page(ids, 7L, 2));
+        assertEquals("목록에 없는 id 도 그 다음부터", List.of(10L, 15L), ItemAttributeIndex.page(ids, 8L, 2));
+        assertTrue(ItemAttributeIndex.page(ids, 20L, 2).isEmpty());
+    }
+
+    private Roaring64NavigableMap filter(String author, boolean inStock) {
+        ItemFilter filter = new ItemFilter();
+        filter.setAuthor(author);
+        filter.setInStock(inStock);
+        return itemAttributeIndex.filter(filter);
+    }
+
+    private static List<Long> ids(Roaring64NavigableMap bitmap) {
+        return ItemAttributeIndex.page(bitmap, null, Integer.MAX_VALUE);
+    }
+
+    private static Item book(String author, int stockQuantity) {
+        Book book = new Book();
+        book.setName("책");
+        book.setAuthor(author);
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        return book;
+    }
+
+    private static String unique(String prefix) {
+        return prefix + "-" + UUID.randomUUID();
+    }
+}
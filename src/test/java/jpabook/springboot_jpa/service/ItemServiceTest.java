@@ -0,0 +1,145 @@
+package jpabook.springboot_jpa.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.item.Album;
+import jpabook.springboot_jpa.domain.item.Book;
+import jpabook.springboot_jpa.domain.item.Item;
+import jpabook.springboot_jpa.domain.item.ItemType;
+import jpabook.springboot_jpa.repository.FacetCount;
+import jpabook.springboot_jpa.repository.ItemSearch;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 다른 테스트가 커밋한 상품이 섞이지 않도록 항상 이 테스트에서 만든 카테고리로 범위를 좁혀서 확인한다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class ItemServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    CategoryService categoryService;
+    @Autowired
+    CategoryTreeHolder categoryTreeHolder;
+
+    Long root;
+    Long it;
+    Long music;
+    Item jpaBook;
+    Item springBook;
+    Item album;
+
+    @Before
+    public void setUp() {
+        root = categoryService.create(null, "전체");
+        it = categoryService.create(root, "IT");
+        Long jpa = categoryService.create(it, "JPA");
+        music = categoryService.create(root, "음반");
+
+        jpaBook = createItem(new Book(), "자바 ORM 표준 JPA", 30000);
+        springBook = createItem(new Book(), "토비의 스프링", 40000);
+        album = createItem(new Album(), "앨범", 15000);
+        categoryService.addItem(jpa, jpaBook.getId());
+        categoryService.addItem(it, jpaBook.getId()); // 같은 하위 트리의 두 카테고리에 속한 상품
+        categoryService.addItem(it, springBook.getId());
+        categoryService.addItem(music, album.getId());
+        em.flush();
+        em.clear();
+        categoryTreeHolder.rebuild();
+    }
+
+    @Test
+    public void 카테고리_하위_트리와_종류_가격으로_거른다() throws Exception {
+        assertEquals(List.of(jpaBook.getId(), springBook.getId(), album.getId()), ids(search(root, null, null, null)));
+        assertEquals(List.of(jpaBook.getId(), springBook.getId()), ids(search(it, null, null, null)));
+        assertEquals(List.of(album.getId()), ids(search(root, ItemType.ALBUM, null, null)));
+        assertEquals(List.of(jpaBook.getId()), ids(search(root, null, 20000, 35000)));
+    }
+
+    @Test
+    public void 키셋_페이징은_마지막_id_다음부터_읽는다() throws Exception {
+        ItemSearch itemSearch = new ItemSearch();
+        itemSearch.setCategoryId(root);
+
+        List<Item> first = itemService.search(itemSearch, null, 2);
+        List<Item> second = itemService.search(itemSearch, first.get(first.size() - 1).getId(), 2);
+
+        assertEquals(List.of(jpaBook.getId(), springBook.getId()), ids(first));
+        assertEquals(List.of(album.getId()), ids(second));
+    }
+
+    @Test
+    public void 종류별_개수는_종류_조건을_빼고_센다() throws Exception {
+        ItemSearch itemSearch = new ItemSearch();
+        itemSearch.setCategoryId(root);
+        itemSearch.setType(ItemType.BOOK);
+
+        Map<String, Long> counts = counts(itemService.countByType(itemSearch));
+
+        assertEquals(Long.valueOf(2), counts.get("BOOK"));
+        assertEquals(Long.valueOf(1), counts.get("ALBUM"));
+        assertEquals("없는 종류도 0 으로 나온다", Long.valueOf(0), counts.get("MOVIE"));
+    }
+
+    @Test
+    public void 카테고리별_개수는_바로_아래_카테고리의_하위_트리를_센다() throws Exception {
+        ItemSearch itemSearch = new ItemSearch();
+        itemSearch.setCategoryId(root);
+
+        Map<String, Long> counts = counts(itemService.countByCategory(itemSearch));
+
+        assertEquals("두 카테고리에 걸친 상품은 한번만 센다", Long.valueOf(2), counts.get(String.valueOf(it)));
+        assertEquals(Long.valueOf(1), counts.get(String.valueOf(music)));
+
+        itemSearch.setType(ItemType.ALBUM);
+        assertEquals(Long.valueOf(0), counts(itemService.countByCategory(itemSearch)).get(String.valueOf(it)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 최소_가격이_최대_가격보다_크면_예외() throws Exception {
+        search(root, null, 20000, 10000);
+
+        fail("예외가 발생해야 한다.");
+    }
+
+    private List<Item> search(Long categoryId, ItemType type, Integer minPrice, Integer maxPrice) {
+        ItemSearch itemSearch = new ItemSearch();
+        itemSearch.setCategoryId(categoryId);
+        itemSearch.setType(type);
+        itemSearch.setMinPrice(minPrice);
+        itemSearch.setMaxPrice(maxPrice);
+        return itemService.search(itemSearch, null, 100);
+    }
+
+    private static List<Long> ids(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+
+    private static Map<String, Long> counts(List<FacetCount> facets) {
+        return facets.stream().collect(Collectors.toMap(FacetCount::getKey, FacetCount::getCount));
+    }
+
+    private Item createItem(Item item, String name, int price) {
+        item.setName(name);
+        item.setPrice(price);
+        item.setStockQuantity(10);
+        em.persist(item);
+        return item;
+    }
+}
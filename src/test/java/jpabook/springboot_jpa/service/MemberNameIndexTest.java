@@ -0,0 +1,89 @@
+package jpabook.springboot_jpa.service;
+
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MemberNameIndexTest {
+
+    MemberNameIndex index = new MemberNameIndex(null);
+
+    @Test
+    public void 이름_중간_부분으로_찾는다() throws Exception {
+        // given
+        index.put(1L, "김영한");
+        index.put(2L, "Kim Younghan");
+        index.put(3L, "Park Jisung");
+
+        // when
+        LongList result = index.search("YOUNG", 10);
+
+        // then
+        assertEquals(1, result.size());
+        assertEquals(2L, result.getLong(0));
+    }
+
+    @Test
+    public void 조각은_모두_있지만_연속되지_않으면_제외한다() throws Exception {
+        index.put(1L, "abcxbcd");
+
+        assertTrue("abc, bcd 조각은 있지만 abcd 는 포함되지 않는다", index.search("abcd", 10).isEmpty());
+        assertEquals(1, index.search("bcd", 10).size());
+    }
+
+    @Test
+    public void 세글자_미만_검색어는_전체를_훑는다() throws Exception {
+        index.put(1L, "홍길동");
+        index.put(2L, "길라임");
+        index.put(3L, "이순신");
+
+        LongList result = index.search("길", 10);
+
+        assertEquals(2, result.size());
+        assertEquals(1L, result.getLong(0));
+        assertEquals(2L, result.getLong(1));
+    }
+
+    @Test
+    public void 세글자_미만_검색어도_id_순으로_limit_만큼_돌려준다() throws Exception {
+        // 해시 맵에서는 1, 2, 3, 4, 5 가 5 1 3 4 2 순으로 순회된다
+        for (long id : new long[]{5, 1, 3, 4, 2}) {
+            index.put(id, "이" + id);
+        }
+        index.put(3L, "박3"); // 변경 후에도 순서 유지
+
+        LongList result = index.search("이", 3);
+
+        assertEquals(3, result.size());
+        assertEquals(1L, result.getLong(0));
+        assertEquals(2L, result.getLong(1));
+        assertEquals(4L, result.getLong(2));
+    }
+
+    @Test
+    public void 이름을_바꾸면_이전_이름으로는_찾을_수_없다() throws Exception {
+        // given
+        index.put(1L, "José Kim");
+
+        // when
+        index.put(1L, "Lee Minho");
+
+        // then
+        assertTrue(index.search("jose", 10).isEmpty());
+        assertEquals(1, index.search("minho", 10).size());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void 악센트와_대소문자를_무시하고_limit_만큼만_돌려준다() throws Exception {
+        for (long id = 1; id <= 5; id++) {
+            index.put(id, "Renée " + id);
+        }
+
+        LongList result = index.search("RENEE", 3);
+
+        assertEquals(3, result.size());
+        assertEquals(1L, result.getLong(0));
+    }
+}
@@ -0,0 +1,143 @@
+package jpabook.springboot_jpa.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Address;
+import jpabook.springboot_jpa.domain.Member;
+import jpabook.springboot_jpa.domain.OrderCommand;
+import jpabook.springboot_jpa.domain.OrderCommandStatus;
+import jpabook.springboot_jpa.domain.item.Book;
+import jpabook.springboot_jpa.repository.OrderCommandRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 워커가 별도 트랜잭션으로 처리하므로 @Transactional 을 붙이지 않고, 처리될 때까지 기다린다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderCommandProcessorTest {
+
+    @Autowired
+    OrderCommandService orderCommandService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    OrderCommandProcessor orderCommandProcessor;
+    @Autowired
+    OrderCommandRepository orderCommandRepository;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 접수한_주문은_워커가_처리하고_재고가_부족하면_실패로_남는다() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("비동기회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(3);
+        itemService.saveItem(book);
+
+        // when
+        String okId = orderCommandService.accept(memberId, List.of(new OrderLine(book.getId(), 2)));
+        String failId = orderCommandService.accept(memberId, List.of(new OrderLine(book.getId(), 5)));
+
+        // then
+        OrderCommand ok = await(okId);
+        assertEquals(OrderCommandStatus.DONE, ok.getStatus());
+        assertNotNull(ok.getOrderId());
+
+        OrderCommand fail = await(failId);
+        assertEquals(OrderCommandStatus.FAILED, fail.getStatus());
+        assertNotNull(fail.getFailureReason());
+
+        assertEquals(1, itemService.findOne(book.getId()).getStockQuantity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 없는_상품은_접수하지_않는다() throws Exception {
+        Member member = new Member();
+        member.setName("비동기회원" + System.nanoTime());
+        Long memberId = memberService.join(member);
+
+        orderCommandService.accept(memberId, List.of(new OrderLine(-1L, 1)));
+    }
+
+    @Test
+    public void 다른_워커가_다시_가져간_명령은_처리하지_않는다() throws Exception {
+        // given: 워커 A 가 가져갔다가 releaseStale 로 풀린 뒤 워커 B 가 다시 가져간 명령
+        Member member = new Member();
+        member.setName("비동기회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(3);
+        itemService.saveItem(book);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Long commandId = transactionTemplate.execute(status -> {
+            OrderCommand command = OrderCommand.create(memberId, OrderLine.encode(List.of(new OrderLine(book.getId(), 2))));
+            orderCommandRepository.save(command);
+            em.flush();
+            // 폴러가 먼저 가져가지 않도록 같은 트랜잭션에서 바로 B 의 claim 상태로 만든다
+            em.createQuery("update OrderCommand c set c.status = :processing, c.claimToken = :claimToken, c.claimedAt = :now where c.id = :id")
+                    .setParameter("processing", OrderCommandStatus.PROCESSING)
+                    .setParameter("claimToken", "worker-b")
+                    .setParameter("now", LocalDateTime.now())
+                    .setParameter("id", command.getId())
+                    .executeUpdate();
+            return command.getId();
+        });
+
+        // when: 늦게 끝난 워커 A
+        orderCommandProcessor.process(commandId, "worker-a");
+
+        // then
+        OrderCommand afterA = transactionTemplate.execute(status -> orderCommandRepository.findOne(commandId));
+        assertEquals("A 는 손을 떼야 한다", OrderCommandStatus.PROCESSING, afterA.getStatus());
+        assertNull(afterA.getOrderId());
+        assertEquals(3, itemService.findOne(book.getId()).getStockQuantity());
+
+        // when: 지금 주인인 워커 B
+        orderCommandProcessor.process(commandId, "worker-b");
+
+        // then
+        OrderCommand afterB = transactionTemplate.execute(status -> orderCommandRepository.findOne(commandId));
+        assertEquals(OrderCommandStatus.DONE, afterB.getStatus());
+        assertNotNull(afterB.getOrderId());
+        assertEquals("주문은 한 번만 만들어져야 한다", 1, itemService.findOne(book.getId()).getStockQuantity());
+    }
+
+    private OrderCommand await(String trackingId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (true) {
+            OrderCommand command = orderCommandService.findByTrackingId(trackingId).orElseThrow();
+            boolean finished = command.getStatus() == OrderCommandStatus.DONE || command.getStatus() == OrderCommandStatus.FAILED;
+            if (finished || System.currentTimeMillis() > deadline) {
+                return command;
+            }
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package jpabook.springboot_jpa.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Address;
+import jpabook.springboot_jpa.domain.Delivery;
+import jpabook.springboot_jpa.domain.Member;
+import jpabook.springboot_jpa.domain.Order;
+import jpabook.springboot_jpa.repository.OrderRepository;
+import jpabook.springboot_jpa.repository.order.query.OrderQueryDto;
+import jpabook.springboot_jpa.repository.order.query.OrderQueryRepository;
+import jpabook.springboot_jpa.service.OrderFetchPlanner.OrderFetchStrategy;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderFetchPlannerTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    OrderQueryRepository orderQueryRepository;
+
+    @Test
+    public void 모든_전략이_같은_페이지를_읽는다() throws Exception {
+        // given: 주문상품이 없는 주문 포함
+        Member member = new Member();
+        member.setName("회원1");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        Order empty = Order.createOrder(member, delivery);
+        em.persist(empty);
+        em.flush();
+        em.clear();
+
+        // when
+        List<Long> v3 = orderRepository.findAllWithMemberDelivery(0, 1000).stream()
+                .map(o -> o.getId())
+                .collect(toList());
+        List<OrderQueryDto> v5 = orderQueryRepository.findAllByDto_optimization(0, 1000);
+        List<OrderQueryDto> v6 = orderQueryRepository.findAllByDto_flat(0, 1000);
+
+        // then
+        assertTrue("주문상품이 없는 주문도 포함해야 한다", v3.contains(empty.getId()));
+        assertEquals("V3.1 과 V5 는 같은 주문을 같은 순서로 읽어야 한다", v3, orderIds(v5));
+        assertEquals("V3.1 과 V6 는 같은 주문을 같은 순서로 읽어야 한다", v3, orderIds(v6));
+
+        OrderQueryDto emptyDto = v6.get(v3.indexOf(empty.getId()));
+        assertTrue("주문상품이 없으면 빈 목록", emptyDto.getOrderItems().isEmpty());
+        assertTrue(v5.get(v3.indexOf(empty.getId())).getOrderItems().isEmpty());
+    }
+
+    @Test
+    public void 페이지_경계가_전략마다_같다() throws Exception {
+        List<Long> v3 = orderRepository.findAllWithMemberDelivery(1, 1).stream()
+                .map(o -> o.getId())
+                .collect(toList());
+
+        assertEquals(v3, orderIds(orderQueryRepository.findAllByDto_optimization(1, 1)));
+        assertEquals(v3, orderIds(orderQueryRepository.findAllByDto_flat(1, 1)));
+    }
+
+    @Test
+    public void 주문상품이_적으면_페이지_크기와_상관없이_V6() throws Exception {
+        OrderFetchPlanner planner = planner(1000, 1500);
+
+        assertEquals(OrderFetchStrategy.V6, planner.preferredByShape(10));
+        assertEquals(OrderFetchStrategy.V6, planner.preferredByShape(1000));
+        assertEquals(OrderFetchStrategy.V6, planner.preferredByShape(null));
+    }
+
+    @Test
+    public void 주문상품이_많으면_페이지가_클_때만_V5() throws Exception {
+        OrderFetchPlanner planner = planner(1000, 5000); // 주문당 5개 -> 주문 1건당 중복 row 4개
+
+        assertEquals("100 x 4 = 400 <= 1000", OrderFetchStrategy.V6, planner.preferredByShape(100));
+        assertEquals("1000 x 4 = 4000 > 1000", OrderFetchStrategy.V5, planner.preferredByShape(1000));
+        assertEquals("페이징하지 않으면 전체 주문 수 기준", OrderFetchStrategy.V5, planner.preferredByShape(null));
+    }
+
+    @Test
+    public void 측정이_모자라면_통계_기반_전략을_쓴다() throws Exception {
+        OrderFetchPlanner planner = planner(1000, 5000);
+        seed(planner, OrderFetchStrategy.V3_1, 4, 1); // V3.1 이 가장 빠르지만 샘플이 MIN_SAMPLES 미만
+        seed(planner, OrderFetchStrategy.V5, 10, 1000);
+        seed(planner, OrderFetchStrategy.V6, 10, 1000);
+
+        assertEquals(OrderFetchStrategy.V5, planner.choose(1000));
+    }
+
+    @Test
+    public void 통계_기반_전략이_20퍼센트_넘게_느리면_가장_빠른_전략으로_바꾼다() throws Exception {
+        OrderFetchPlanner planner = planner(1000, 5000); // 통계 기반은 V5
+        seed(planner, OrderFetchStrategy.V3_1, 10, 2000);
+        seed(planner, OrderFetchStrategy.V5, 10, 1300);
+        seed(planner, OrderFetchStrategy.V6, 10, 1000);
+
+        assertEquals("1300 > 1000 x 1.2", OrderFetchStrategy.V6, planner.choose(1000));
+
+        OrderFetchPlanner close = planner(1000, 5000);
+        seed(close, OrderFetchStrategy.V3_1, 10, 2000);
+        seed(close, OrderFetchStrategy.V5, 10, 1100);
+        seed(close, OrderFetchStrategy.V6, 10, 1000);
+
+        assertEquals("1100 <= 1000 x 1.2 이면 바꾸지 않는다", OrderFetchStrategy.V5, close.choose(1000));
+    }
+
+    @Test
+    public void 스무번에_한번은_측정이_가장_적은_전략을_실행한다() throws Exception {
+        OrderFetchPlanner planner = planner(1000, 5000);
+        seed(planner, OrderFetchStrategy.V3_1, 5, 2000);
+        seed(planner, OrderFetchStrategy.V5, 50, 1000);
+        seed(planner, OrderFetchStrategy.V6, 50, 1100);
+
+        for (int i = 1; i < 20; i++) {
+            assertEquals(OrderFetchStrategy.V5, planner.choose(1000));
+        }
+        assertEquals("느리더라도 측정이 가장 적은 V3.1", OrderFetchStrategy.V3_1, planner.choose(1000));
+        assertEquals(OrderFetchStrategy.V5, planner.choose(1000));
+    }
+
+    @Test
+    public void 페이징하지_않으면_V3_1_은_후보가_아니다() throws Exception {
+        OrderFetchPlanner planner = planner(1000, 5000);
+        seed(planner, OrderFetchStrategy.V5, 10, 1000);
+        seed(planner, OrderFetchStrategy.V6, 10, 1000);
+
+        for (int i = 1; i <= 40; i++) {
+            assertNotEquals(OrderFetchStrategy.V3_1, planner.choose(null));
+        }
+    }
+
+    /**
+     * DB 없이 주문 수, 주문상품 수만 넣은 planner (60초 동안은 다시 세지 않는다)
+     */
+    private OrderFetchPlanner planner(long orderCount, long orderItemCount) {
+        OrderFetchPlanner planner = new OrderFetchPlanner(null, null, null);
+        planner.updateShape(orderCount, orderItemCount, System.nanoTime());
+        return planner;
+    }
+
+    private void seed(OrderFetchPlanner planner, OrderFetchStrategy strategy, int samples, long nanosPerOrder) {
+        for (boolean paged : new boolean[]{true, false}) {
+            for (int i = 0; i < samples; i++) {
+                planner.stats(paged).get(strategy).record(nanosPerOrder);
+            }
+        }
+    }
+
+    private List<Long> orderIds(List<OrderQueryDto> orders) {
+        return orders.stream()
+                .map(o -> o.getOrderId())
+                .collect(toList());
+    }
+
+}
@@ -0,0 +1,160 @@
+package jpabook.springboot_jpa.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Address;
+import jpabook.springboot_jpa.domain.Member;
+import jpabook.springboot_jpa.domain.item.Book;
+import jpabook.springboot_jpa.domain.item.Item;
+import jpabook.springboot_jpa.service.OrderIngestService.IngestError;
+import jpabook.springboot_jpa.service.OrderIngestService.IngestResult;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * chunk 재시도는 트랜잭션 밖에서만 돌기 때문에 @Transactional 을 붙이지 않는다
+ * - 온라인 주문과의 충돌은 createOrderItem 직전에 별도 트랜잭션으로 상품 버전을 올려서 만든다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderIngestServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    OrderIngestService orderIngestService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    OptimisticLockRetryExecutor optimisticLockRetryExecutor;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @SpyBean
+    StockService stockService;
+
+    private Long memberId;
+    private Long itemId;
+
+    @Before
+    public void setUp() {
+        Member member = new Member();
+        member.setName("적재회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        itemId = book.getId();
+    }
+
+    @Test
+    public void 재고_버전이_충돌하면_chunk_를_재시도하고_줄별_실패는_그대로_남긴다() throws Exception {
+        // given
+        AtomicInteger conflicts = new AtomicInteger(1);
+        conflictOnCreateOrderItem(conflicts);
+        double conflictsBefore = optimisticLockRetryExecutor.getConflictCount();
+
+        String csv = String.join("\n",
+                "memberId,itemId,count",
+                memberId + "," + itemId + ",2",
+                "-1," + itemId + ",1",
+                memberId + "," + itemId + ",0",
+                "abc",
+                memberId + "," + itemId + ",100",
+                memberId + "," + itemId + ",3");
+
+        // when
+        IngestResult result = orderIngestService.ingest(input(csv), OrderIngestService.Format.CSV);
+
+        // then
+        assertEquals("충돌을 한번 만들어야 한다", 0, conflicts.get());
+        assertTrue("충돌이 재시도로 처리되어야 한다", optimisticLockRetryExecutor.getConflictCount() > conflictsBefore);
+
+        assertEquals(6, result.getTotalRows());
+        assertEquals("재시도 후 정상 줄은 모두 적재되어야 한다", 2, result.getImportedOrders());
+        assertEquals(4, result.getFailedRows());
+
+        Map<Long, String> errors = result.getErrors().stream()
+                .collect(Collectors.toMap(IngestError::getLine, IngestError::getMessage));
+        assertTrue(errors.get(3L).startsWith("존재하지 않는 회원입니다."));
+        assertEquals("주문 수량은 1개 이상이어야 합니다.", errors.get(4L));
+        assertTrue(errors.get(5L).startsWith("파싱 실패: "));
+        assertEquals("재고 부족: itemId=" + itemId, errors.get(6L));
+        assertFalse("정상 줄은 실패로 남지 않아야 한다", errors.containsKey(2L) || errors.containsKey(7L));
+
+        assertEquals("재시도 전 시도의 재고 차감은 롤백되어야 한다", 5, findItem().getStockQuantity());
+    }
+
+    @Test
+    public void 충돌이_계속되면_chunk_의_모든_줄을_재고_충돌로_남긴다() throws Exception {
+        // given
+        conflictOnCreateOrderItem(new AtomicInteger(Integer.MAX_VALUE));
+
+        String ndjson = String.join("\n",
+                "{\"memberId\":" + memberId + ",\"itemId\":" + itemId + ",\"count\":1}",
+                "{\"memberId\":" + memberId + ",\"itemId\":" + itemId + ",\"count\":2}");
+
+        // when
+        IngestResult result = orderIngestService.ingest(input(ndjson), OrderIngestService.Format.NDJSON);
+
+        // then
+        assertEquals(0, result.getImportedOrders());
+        assertEquals(2, result.getFailedRows());
+        List<IngestError> errors = result.getErrors();
+        assertEquals(1L, errors.get(0).getLine());
+        assertEquals(2L, errors.get(1).getLine());
+        assertTrue(errors.stream().allMatch(e -> e.getMessage().equals("재고 충돌로 적재 실패")));
+        assertEquals("적재되지 않았으니 재고도 그대로여야 한다", 10, findItem().getStockQuantity());
+    }
+
+    /**
+     * createOrderItem 이 불릴 때마다 (remaining 횟수만큼) 다른 트랜잭션이 먼저 상품 재고를 바꾼 것처럼 버전을 올린다
+     */
+    private void conflictOnCreateOrderItem(AtomicInteger remaining) {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        doAnswer(invocation -> {
+            if (remaining.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                Item item = invocation.getArgument(0);
+                requiresNew.executeWithoutResult(status -> em.createNativeQuery("update item set version = version + 1 where item_id = :id")
+                        .setParameter("id", item.getId())
+                        .executeUpdate());
+            }
+            return invocation.callRealMethod();
+        }).when(stockService).createOrderItem(any(), anyInt(), anyInt());
+    }
+
+    private Item findItem() {
+        return new TransactionTemplate(transactionManager).execute(status -> em.find(Item.class, itemId));
+    }
+
+    private ByteArrayInputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -9,6 +9,7 @@ import jpabook.springboot_jpa.domain.item.Book;
 import jpabook.springboot_jpa.domain.item.Item;
 import jpabook.springboot_jpa.exception.NotEnoughStockException;
 import jpabook.springboot_jpa.repository.OrderRepository;
+import jpabook.springboot_jpa.repository.OrderSearch;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +17,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 @RunWith(SpringRunner.class)
@@ -89,6 +93,113 @@ public class OrderServiceTest {
 
     }
 
+    @Test
+    public void 여러상품_주문() throws Exception {
+        // given
+        Member member = createMember();
+        Item book1 = createBook("시골 JPA", 10000, 10);
+        Item book2 = createBook("시골 스프링", 20000, 5);
+
+        // when
+        Long orderId = orderService.order(member.getId(), List.of(
+                new OrderLine(book1.getId(), 2),
+                new OrderLine(book2.getId(), 3)));
+
+        // then
+        Order getOrder = orderRepository.findOne(orderId);
+
+        assertEquals("주문한 상품 종류 수가 정확해야 한다", 2, getOrder.getOrderItems().size());
+        assertEquals("주문 가격은 가격 * 수량의 합이다", 10000 * 2 + 20000 * 3, getOrder.getTotalPrice());
+        assertEquals(8, book1.getStockQuantity());
+        assertEquals(2, book2.getStockQuantity());
+    }
+
+    @Test
+    public void 회원이름_전방일치_검색() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("José Kim");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        Item book = createBook("시골 JPA", 10000, 10);
+        orderService.order(member.getId(), book.getId(), 1);
+        em.flush();
+        em.clear();
+
+        // when
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setOrderStatus(OrderStatus.ORDER);
+
+        // then
+        orderSearch.setMemberName("JOSE");
+        assertEquals("대소문자, 악센트와 상관없이 찾아야 한다", 1, orderRepository.findAll(orderSearch).size());
+        assertEquals(1, orderRepository.findAllByString(orderSearch).size());
+        assertEquals(1, orderRepository.findAllByCriteria(orderSearch).size());
+        assertEquals(1, orderRepository.search(orderSearch).size());
+
+        orderSearch.setMemberName("Kim");
+        assertEquals("이름 중간은 전방 일치가 아니다", 0, orderRepository.findAll(orderSearch).size());
+        assertEquals(0, orderRepository.findAllByString(orderSearch).size());
+        assertEquals(0, orderRepository.findAllByCriteria(orderSearch).size());
+        assertEquals(0, orderRepository.search(orderSearch).size());
+
+        orderSearch.setMemberName("jos_");
+        assertEquals("검색어의 _ 는 와일드카드가 아니다", 0, orderRepository.findAll(orderSearch).size());
+        assertEquals(0, orderRepository.search(orderSearch).size());
+    }
+
+    @Test
+    public void 주문일_범위_검색() throws Exception {
+        // given
+        Member member = createMember();
+        Item book = createBook("시골 JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), book.getId(), 1);
+        LocalDateTime orderDate = orderRepository.findOne(orderId).getOrderDate();
+
+        // when
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("회원1");
+        orderSearch.setOrderDateFrom(orderDate);
+        orderSearch.setOrderDateTo(orderDate.plusSeconds(1));
+
+        // then
+        assertEquals(1, orderRepository.search(orderSearch).size());
+
+        orderSearch.setOrderDateFrom(orderDate.plusSeconds(1));
+        orderSearch.setOrderDateTo(null);
+        assertEquals("시작일은 포함, 이후 주문만 찾는다", 0, orderRepository.search(orderSearch).size());
+    }
+
+    @Test
+    public void 주문_총액은_저장되고_SQL_로_검색된다() throws Exception {
+        // given
+        Member member = createMember();
+        Item book1 = createBook("시골 JPA", 10000, 10);
+        Item book2 = createBook("시골 스프링", 20000, 5);
+        Long orderId = orderService.order(member.getId(), List.of(
+                new OrderLine(book1.getId(), 2),
+                new OrderLine(book2.getId(), 1)));
+        em.flush();
+        em.clear();
+
+        // when
+        Integer totalPrice = em.createQuery("select o.totalPrice from Order o where o.id = :id", Integer.class)
+                .setParameter("id", orderId)
+                .getSingleResult();
+        Order order = orderRepository.findOne(orderId);
+
+        // then
+        assertEquals(40000, totalPrice.intValue());
+        assertEquals(2, order.getItemCount());
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("회원1");
+        orderSearch.setMinTotalPrice(40000);
+        assertEquals(1, orderRepository.search(orderSearch).size());
+        orderSearch.setMinTotalPrice(40001);
+        assertEquals(0, orderRepository.search(orderSearch).size());
+    }
+
     private Item createBook(String name, int price, int stockQuantity) {
         Item book = new Book();
         book.setName(name);
@@ -0,0 +1,210 @@
+package jpabook.springboot_jpa.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.springboot_jpa.domain.Address;
+import jpabook.springboot_jpa.domain.Member;
+import jpabook.springboot_jpa.domain.OrderStatus;
+import jpabook.springboot_jpa.domain.OrderSummary;
+import jpabook.springboot_jpa.domain.item.Book;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.lang.Nullable;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+/**
+ * 커밋 후 이벤트로 갱신되므로 @Transactional 을 붙이지 않고, 반영될 때까지 기다린다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderSummaryProjectorTest {
+
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 주문_취소_회원이름_변경이_요약에_반영된다() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("요약회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+
+        // when, then
+        Long orderId = orderService.order(memberId, book.getId(), 1);
+        OrderSummary summary = await(orderId, s -> s != null);
+        assertEquals(OrderStatus.ORDER, summary.getStatus());
+        assertEquals(memberId, summary.getMemberId());
+        assertEquals("서울", summary.getAddress().getCity());
+
+        orderService.cancelOrder(orderId);
+        assertEquals(OrderStatus.CANCEL, await(orderId, s -> s.getStatus() == OrderStatus.CANCEL).getStatus());
+
+        memberService.update(memberId, "바뀐이름" + System.nanoTime());
+        assertTrue(await(orderId, s -> s.getMemberName().startsWith("바뀐이름")).getMemberName().startsWith("바뀐이름"));
+    }
+
+    @Test
+    public void 반영에_실패한_주문은_재시도_때_다시_반영한다() throws Exception {
+        // given: 첫 트랜잭션만 실패하는 projector
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AtomicInteger failures = new AtomicInteger(1);
+        OrderSummaryProjector projector = new OrderSummaryProjector(em, controlledTransactionManager(failures, new CountDownLatch(0)),
+                registry, false, 10);
+        Long orderId = createOrder();
+
+        try {
+            // when
+            projector.onOrderChanged(new OrderChangedEvent(List.of(orderId)));
+            awaitTrue(() -> registry.counter("order.summary.failures").count() == 1);
+            assertEquals("실패한 주문은 재시도 목록에 남아야 한다", 1.0, registry.get("order.summary.retry").gauge().value(), 0);
+
+            projector.retryFailed();
+
+            // then
+            awaitTrue(() -> projected(registry) == 1);
+            assertEquals(0.0, registry.get("order.summary.retry").gauge().value(), 0);
+        } finally {
+            projector.shutdown();
+        }
+    }
+
+    @Test
+    public void 작업_큐가_가득_차면_버리지_않고_재시도로_미룬다() throws Exception {
+        // given: 작업 큐 1칸, 첫 작업은 latch 가 열릴 때까지 붙잡혀 있다
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CountDownLatch release = new CountDownLatch(1);
+        OrderSummaryProjector projector = new OrderSummaryProjector(em, controlledTransactionManager(new AtomicInteger(), release),
+                registry, false, 1);
+        Long orderId = createOrder();
+
+        try {
+            // when: 실행 중 1 + 대기 1 + 거절 1
+            projector.onOrderChanged(new OrderChangedEvent(List.of(orderId)));
+            awaitTrue(() -> registry.get("order.summary.pending").gauge().value() == 0);
+            projector.onOrderChanged(new OrderChangedEvent(List.of(orderId)));
+            projector.onOrderChanged(new OrderChangedEvent(List.of(orderId)));
+
+            // then
+            assertEquals(1.0, registry.counter("order.summary.rejected").count(), 0);
+            assertEquals(1.0, registry.get("order.summary.retry").gauge().value(), 0);
+
+            release.countDown();
+            awaitTrue(() -> projected(registry) == 2);
+            projector.retryFailed();
+            awaitTrue(() -> projected(registry) == 3);
+            assertEquals(OrderStatus.ORDER, find(orderId).getStatus());
+        } finally {
+            release.countDown();
+            projector.shutdown();
+        }
+    }
+
+    private Long createOrder() {
+        Member member = new Member();
+        member.setName("재시도회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+
+        return orderService.order(memberId, book.getId(), 1);
+    }
+
+    /**
+     * 처음 failures 번은 트랜잭션 시작에 실패하고, 그 뒤로는 release 가 열릴 때까지 기다렸다가 실제 트랜잭션 매니저로 넘긴다
+     */
+    private PlatformTransactionManager controlledTransactionManager(AtomicInteger failures, CountDownLatch release) {
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(@Nullable TransactionDefinition definition) {
+                if (failures.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                    throw new TransactionSystemException("트랜잭션 시작 실패");
+                }
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return transactionManager.getTransaction(definition);
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                transactionManager.commit(status);
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                transactionManager.rollback(status);
+            }
+        };
+    }
+
+    private long projected(MeterRegistry registry) {
+        return registry.get("order.summary.lag").timer().count();
+    }
+
+    private void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("조건이 충족되지 않았습니다", System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private OrderSummary await(Long orderId, Predicate<OrderSummary> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            OrderSummary summary = find(orderId);
+            if (summary != null && condition.test(summary) || System.currentTimeMillis() > deadline) {
+                assertNotNull("요약이 반영되지 않았습니다", summary);
+                return summary;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private OrderSummary find(Long orderId) {
+        try (EntityManager em = emf.createEntityManager()) {
+            return em.find(OrderSummary.class, orderId);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package jpabook.springboot_jpa.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Address;
+import jpabook.springboot_jpa.domain.Member;
+import jpabook.springboot_jpa.domain.item.Book;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 백필은 배치마다 자기 트랜잭션으로 커밋하므로 @Transactional 을 붙이지 않는다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"jpashop.backfill.order-totals=true", "jpashop.backfill.batch-size=2"})
+public class OrderTotalsBackfillTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    OrderTotalsBackfill orderTotalsBackfill;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    MemberService memberService;
+
+    @Test
+    public void 비어_있는_주문만_배치로_나눠서_채운다() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("백필회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+        Long book1 = saveBook(10000);
+        Long book2 = saveBook(20000);
+
+        Long done = orderService.order(memberId, book1, 2);
+        Long order1 = orderService.order(memberId, List.of(new OrderLine(book1, 1), new OrderLine(book2, 3)));
+        Long order2 = orderService.order(memberId, book2, 1);
+        Long order3 = orderService.order(memberId, List.of(new OrderLine(book1, 1), new OrderLine(book2, 1)));
+        Long order4 = orderService.order(memberId, book1, 3);
+
+        // 이전 실행이 done 까지 처리하고 멈춘 상황 (다시 계산하지 않는지 보려고 일부러 다른 값을 넣어 둔다)
+        execute("update orders set total_price = 1, item_count = 1 where order_id = " + done);
+        execute("update orders set total_price = null, item_count = null where order_id in (" + order1 + ", " + order2 + ", " + order3 + ")");
+        execute("update orders set item_count = null where order_id = " + order4);
+
+        // when: 비어 있는 주문 4건을 2건씩 처리
+        orderTotalsBackfill.run(null);
+
+        // then
+        assertTotals(done, 1, 1);
+        assertTotals(order1, 70000, 2);
+        assertTotals(order2, 20000, 1);
+        assertTotals(order3, 30000, 2);
+        assertTotals(order4, 30000, 1);
+
+        // 다시 실행해도 바뀌는 것이 없다
+        orderTotalsBackfill.run(null);
+        assertTotals(done, 1, 1);
+        assertTotals(order1, 70000, 2);
+    }
+
+    private Long saveBook(int price) {
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(price);
+        book.setStockQuantity(100);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private void execute(String sql) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> em.createNativeQuery(sql).executeUpdate());
+    }
+
+    private void assertTotals(Long orderId, int totalPrice, int itemCount) {
+        Object[] row = new TransactionTemplate(transactionManager).execute(status -> (Object[]) em.createNativeQuery(
+                        "select total_price, item_count from orders where order_id = :id")
+                .setParameter("id", orderId)
+                .getSingleResult());
+        assertNotNull("total_price 가 채워져야 한다", row[0]);
+        assertNotNull("item_count 가 채워져야 한다", row[1]);
+        assertEquals("total_price, orderId=" + orderId, totalPrice, ((Number) row[0]).intValue());
+        assertEquals("item_count, orderId=" + orderId, itemCount, ((Number) row[1]).intValue());
+    }
+
+}
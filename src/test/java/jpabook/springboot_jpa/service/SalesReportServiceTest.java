@@ -0,0 +1,134 @@
+package jpabook.springboot_jpa.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Address;
+import jpabook.springboot_jpa.domain.Member;
+import jpabook.springboot_jpa.domain.item.Album;
+import jpabook.springboot_jpa.domain.item.Book;
+import jpabook.springboot_jpa.domain.item.Item;
+import jpabook.springboot_jpa.repository.report.SalesGroupBy;
+import jpabook.springboot_jpa.repository.report.SalesRowDto;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class SalesReportServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    SalesReportService salesReportService;
+    @Autowired
+    SalesRollupService salesRollupService;
+
+    @Test
+    public void 상품별_매출은_롤업과_원본_집계가_같다() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("리포트회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+
+        Item book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+
+        Item album = new Album();
+        album.setName("앨범");
+        album.setPrice(3000);
+        album.setStockQuantity(10);
+        em.persist(album);
+
+        orderService.order(member.getId(), book.getId(), 2);
+        orderService.order(member.getId(), album.getId(), 3);
+        Long canceledId = orderService.order(member.getId(), book.getId(), 1);
+        orderService.cancelOrder(canceledId);
+        em.flush();
+
+        // when
+        salesRollupService.rebuild();
+        LocalDate today = LocalDate.now();
+        Map<String, SalesRowDto> rollup = byKey(salesReportService.sales(SalesGroupBy.ITEM, today, today, false));
+        Map<String, SalesRowDto> live = byKey(salesReportService.sales(SalesGroupBy.ITEM, today, today, true));
+        Map<String, SalesRowDto> types = byKey(salesReportService.sales(SalesGroupBy.TYPE, today, today, false));
+
+        // then
+        SalesRowDto bookRow = rollup.get(book.getId().toString());
+        SalesRowDto albumRow = rollup.get(album.getId().toString());
+        assertEquals("취소 주문은 제외한다", 20000, bookRow.getRevenue());
+        assertEquals(2, bookRow.getUnits());
+        assertEquals("시골 JPA", bookRow.getLabel());
+        assertEquals(9000, albumRow.getRevenue());
+        assertEquals(live.get(book.getId().toString()), bookRow);
+        assertEquals(live.get(album.getId().toString()), albumRow);
+        assertEquals("종류 이름은 구분 값으로 바꿔서 보여준다", "Album", types.get("A").getLabel());
+    }
+
+    @Test
+    public void 재구성_후_바뀐_주문은_그_주문일만_다시_집계한다() throws Exception {
+        // given: 오늘 주문 1건, 지난 날짜 주문 1건으로 재구성
+        Member member = new Member();
+        member.setName("리포트회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+
+        Item book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+
+        LocalDate today = LocalDate.now();
+        LocalDate past = LocalDate.of(2001, 2, 3);
+        orderService.order(member.getId(), book.getId(), 2);
+        Long pastOrderId = orderService.order(member.getId(), book.getId(), 3);
+        em.flush();
+        em.createNativeQuery("update orders set order_date = :date where order_id = :id")
+                .setParameter("date", past.atTime(10, 0))
+                .setParameter("id", pastOrderId)
+                .executeUpdate();
+        em.clear();
+
+        salesRollupService.rebuild();
+        assertEquals(30000, byKey(salesReportService.sales(SalesGroupBy.ITEM, past, past, false)).get(book.getId().toString()).getRevenue());
+
+        // 오늘 롤업 행을 일부러 틀린 값으로 바꿔 둔다 (다시 집계되면 원래 값으로 돌아온다)
+        em.createNativeQuery("update sales_daily set revenue = 1 where sales_date = :day and item_id = :itemId")
+                .setParameter("day", today)
+                .setParameter("itemId", book.getId())
+                .executeUpdate();
+
+        // when: 지난 날짜 주문 취소 -> 커밋 후 이벤트 -> 주기 갱신
+        orderService.cancelOrder(pastOrderId);
+        em.flush();
+        salesRollupService.onOrderChanged(new OrderChangedEvent(List.of(pastOrderId)));
+        salesRollupService.refreshDirtyDays();
+
+        // then
+        assertNull("취소된 주문의 날짜는 다시 집계되어야 한다",
+                byKey(salesReportService.sales(SalesGroupBy.ITEM, past, past, false)).get(book.getId().toString()));
+        assertEquals("바뀐 주문이 없는 날짜는 다시 집계하지 않는다",
+                1, byKey(salesReportService.sales(SalesGroupBy.ITEM, today, today, false)).get(book.getId().toString()).getRevenue());
+    }
+
+    private Map<String, SalesRowDto> byKey(List<SalesRowDto> rows) {
+        return rows.stream().collect(Collectors.toMap(SalesRowDto::getKey, r -> r));
+    }
+}
@@ -0,0 +1,73 @@
+package jpabook.springboot_jpa.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.springboot_jpa.domain.item.Book;
+import jpabook.springboot_jpa.domain.item.Item;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("cache")
+public class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void clear_후_다시_조회하면_2차_캐시에서_읽는다() throws Exception {
+        // given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long itemId = tx.execute(status -> {
+            Book book = new Book();
+            book.setName("캐시 JPA");
+            book.setPrice(10000);
+            book.setStockQuantity(10);
+            em.persist(book);
+            return book.getId();
+        });
+        emf.getCache().evict(Item.class);
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // when
+        tx.executeWithoutResult(status -> {
+            em.find(Item.class, itemId);
+            em.clear();
+            em.find(Item.class, itemId);
+        });
+
+        // then
+        assertEquals("첫 조회만 DB 에서 읽는다", 1, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getSecondLevelCacheMissCount());
+        assertEquals("clear 후 조회는 2차 캐시 적중", 1, statistics.getSecondLevelCacheHitCount());
+        assertTrue(emf.getCache().contains(Item.class, itemId));
+    }
+
+    @Test
+    public void 리전별_캐시_메트릭이_등록된다() throws Exception {
+        for (String metric : new String[]{"jcache.hits", "jcache.misses", "jcache.puts", "jcache.evictions"}) {
+            assertNotNull(metric, meterRegistry.find(metric).tag("cache", "item").functionCounter());
+            assertNotNull(metric, meterRegistry.find(metric).tag("cache", "member").functionCounter());
+        }
+    }
+
+}
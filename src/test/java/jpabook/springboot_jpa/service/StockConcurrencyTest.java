@@ -0,0 +1,152 @@
+package jpabook.springboot_jpa.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Address;
+import jpabook.springboot_jpa.domain.Member;
+import jpabook.springboot_jpa.domain.StockMovementType;
+import jpabook.springboot_jpa.domain.item.Book;
+import jpabook.springboot_jpa.domain.item.Item;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 트랜잭션을 직접 커밋해야 하므로 @Transactional 을 붙이지 않는다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class StockConcurrencyTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    OptimisticLockRetryExecutor optimisticLockRetryExecutor;
+    @Autowired
+    StockService stockService;
+
+    @Test
+    public void 동시_주문시_재고가_유실되지_않는다() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("동시주문회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        Long itemId = book.getId();
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger success = new AtomicInteger();
+
+        // when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    optimisticLockRetryExecutor.execute(() -> orderService.order(memberId, itemId, 1));
+                    success.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // 재시도 횟수를 넘긴 주문은 실패로 본다
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        Item item = itemService.findOne(itemId);
+        Long orderCount = em.createQuery("select count(o) from Order o where o.member.id = :memberId", Long.class)
+                .setParameter("memberId", memberId)
+                .getSingleResult();
+
+        assertTrue("최소 한 건은 성공해야 한다", success.get() > 0);
+        assertEquals("성공한 주문 수만큼만 주문이 저장되어야 한다", success.get(), orderCount.intValue());
+        assertEquals("성공한 주문 수만큼만 재고가 줄어야 한다", 10 - success.get(), item.getStockQuantity());
+    }
+
+    @Test
+    public void 같은_주문을_동시에_취소해도_재고는_한번만_돌려준다() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("동시취소회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        Long itemId = book.getId();
+        Long orderId = orderService.order(memberId, itemId, 3);
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger canceled = new AtomicInteger();
+
+        // when: 단건 취소와 일괄 취소를 섞어서 동시에
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            boolean bulk = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                start.await();
+                if (bulk) {
+                    canceled.addAndGet(orderService.cancelOrders(List.of(orderId)).getCanceledOrderIds().size());
+                } else {
+                    try {
+                        orderService.cancelOrder(orderId);
+                        canceled.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        // 이미 취소된 주문
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        long releases = stockService.findMovements(itemId, null, 100).stream()
+                .filter(m -> m.getType() == StockMovementType.RELEASE)
+                .count();
+        assertEquals("취소는 한 번만 성공해야 한다", 1, canceled.get());
+        assertEquals("RELEASE 는 한 번만 남아야 한다", 1, releases);
+        assertEquals("재고는 한 번만 돌아와야 한다", 10, itemService.findOne(itemId).getStockQuantity());
+    }
+
+}
@@ -0,0 +1,245 @@
+package jpabook.springboot_jpa.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.springboot_jpa.domain.Address;
+import jpabook.springboot_jpa.domain.Member;
+import jpabook.springboot_jpa.domain.StockMovement;
+import jpabook.springboot_jpa.domain.StockMovementType;
+import jpabook.springboot_jpa.domain.item.Book;
+import jpabook.springboot_jpa.domain.item.Item;
+import jpabook.springboot_jpa.exception.NotEnoughStockException;
+import jpabook.springboot_jpa.repository.StockBalance;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 커밋/롤백 후 카운터, item, 변동 기록을 확인하므로 트랜잭션 없이 실행한다
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class StockServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    StockService stockService;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Long memberId;
+
+    @Before
+    public void setUp() {
+        Member member = new Member();
+        member.setName("인기상품회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberId = memberService.join(member);
+    }
+
+    @Test
+    public void 주문과_취소는_카운터에서_처리하고_flush_때_item_에_반영한다() throws Exception {
+        // given
+        Long itemId = createBook(10);
+        stockService.enable(itemId);
+
+        // when
+        Long orderId = orderService.order(memberId, itemId, 3);
+        orderService.order(memberId, itemId, 2);
+
+        // then
+        assertEquals(5, stockService.available(itemId));
+        stockService.flush();
+        assertEquals(5, itemService.findOne(itemId).getStockQuantity());
+
+        // 취소는 커밋 후에 카운터로 돌아온다
+        orderService.cancelOrder(orderId);
+        assertEquals(8, stockService.available(itemId));
+        stockService.flush();
+        assertEquals(8, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    @Test
+    public void 재고보다_많이_주문하면_거절하고_카운터는_그대로() throws Exception {
+        // given
+        Long itemId = createBook(2);
+        stockService.enable(itemId);
+
+        // when
+        try {
+            orderService.order(memberId, itemId, 3);
+            fail("재고 부족 예외가 발생해야 한다.");
+        } catch (NotEnoughStockException e) {
+            // 예상한 예외
+        }
+
+        // then
+        assertEquals(2, stockService.available(itemId));
+    }
+
+    @Test
+    public void 롤백되면_예약을_되돌린다() throws Exception {
+        // given
+        Long itemId = createBook(5);
+        stockService.enable(itemId);
+
+        // when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            stockService.adjust(em.find(Item.class, itemId), 1);
+            assertEquals(1, stockService.available(itemId));
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertEquals(5, stockService.available(itemId));
+        assertEquals("롤백된 변동은 journal 에도 없다", List.of(StockMovementType.ADJUST), types(itemId));
+    }
+
+    @Test
+    public void 재시작하면_미반영_변동을_item_에_반영한다() throws Exception {
+        // given: 커밋됐지만 flush 전에 종료된 상황 (인기 상품이 아닌 상품에 직접 journal 만 남긴다)
+        Long itemId = createBook(10);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.persist(StockMovement.create(itemId, StockMovementType.RESERVE, -3, null, false));
+            em.persist(StockMovement.create(itemId, StockMovementType.RELEASE, 1, null, false));
+        });
+
+        // when
+        stockService.recover();
+
+        // then
+        assertEquals(8, itemService.findOne(itemId).getStockQuantity());
+        stockService.recover();
+        assertEquals("두 번 반영하지 않는다", 8, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    @Test
+    public void 일괄_취소는_상품별로_합쳐서_반영하고_취소할_수_없는_주문은_건너뛴다() throws Exception {
+        // given
+        Long regular = createBook(10);
+        Long hot = createBook(10);
+        stockService.enable(hot);
+
+        Long first = orderService.order(memberId, List.of(new OrderLine(regular, 1), new OrderLine(hot, 2)));
+        Long second = orderService.order(memberId, List.of(new OrderLine(regular, 3), new OrderLine(hot, 1)));
+        Long canceled = orderService.order(memberId, regular, 1);
+        orderService.cancelOrder(canceled);
+
+        // when
+        OrderCancelResult result = orderService.cancelOrders(List.of(first, second, canceled, -1L));
+
+        // then
+        assertEquals(List.of(first, second), result.getCanceledOrderIds());
+        assertEquals(List.of(canceled, -1L), result.getSkipped().stream().map(OrderCancelResult.Skipped::getOrderId).collect(Collectors.toList()));
+        assertEquals(10, itemService.findOne(regular).getStockQuantity());
+        assertEquals(10, stockService.available(hot));
+
+        stockService.flush();
+        assertEquals(10, itemService.findOne(hot).getStockQuantity());
+        assertEquals(List.of(StockMovementType.ADJUST, StockMovementType.RESERVE, StockMovementType.RESERVE,
+                        StockMovementType.RELEASE, StockMovementType.RELEASE),
+                types(hot));
+    }
+
+    @Test
+    public void 변동_기록_합계는_재고와_맞는다() throws Exception {
+        // given
+        Long regular = createBook(10);
+        Long hot = createBook(10);
+        stockService.enable(hot);
+
+        Long orderId = orderService.order(memberId, regular, 4);
+        orderService.order(memberId, hot, 4);
+        orderService.cancelOrder(orderId);
+        itemService.updateItem(regular, "인기 도서", 10000, 7);
+        itemService.updateItem(hot, "인기 도서", 10000, 3);
+
+        // when
+        List<StockBalance> mismatched = stockService.reconcile();
+
+        // then
+        assertEquals(3, stockService.available(hot));
+        assertTrue(mismatched.stream().noneMatch(b -> b.getItemId().equals(regular) || b.getItemId().equals(hot)));
+
+        // journal 을 거치지 않고 재고를 바꾸면 대사에 걸린다
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.find(Item.class, regular).addStock(1));
+        StockBalance balance = stockService.reconcile().stream()
+                .filter(b -> b.getItemId().equals(regular))
+                .findFirst().orElseThrow();
+        assertEquals(8, balance.getStockQuantity());
+        assertEquals(7, balance.getAppliedQuantity());
+    }
+
+    @Test
+    public void 동시_예약은_재고만큼만_성공한다() throws Exception {
+        // given
+        StripedStockCounter counter = new StripedStockCounter(1000, 4);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger success = new AtomicInteger();
+
+        // when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < 300; j++) {
+                    if (counter.tryReserve(1)) {
+                        success.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(1000, success.get());
+        assertEquals(0, counter.available());
+        assertFalse(counter.tryReserve(1));
+    }
+
+    private Long createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("인기 도서");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private List<StockMovementType> types(Long itemId) {
+        return stockService.findMovements(itemId, null, 100).stream()
+                .map(StockMovement::getType)
+                .collect(Collectors.toList());
+    }
+}